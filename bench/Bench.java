@@ -0,0 +1,100 @@
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public final class Bench {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("bench.warmups", 5);
+    private static final int MEASURED_ITERATIONS = Integer.getInteger("bench.iterations", 10);
+
+    private static volatile long sink; //Results are published here so that the JIT cannot drop the measured work.
+
+    /**
+     * A piece of work that is measured; it performs the given number of operations and returns a value
+     * that depends on all of them. The setup runs before every iteration and is not measured.
+     */
+    public interface Task {
+        long run(int operations) throws Exception;
+
+        default void setup() throws Exception {
+        }
+    }
+
+    /**
+     * Returns the value of an integer system property of the benchmarks.
+     *
+     * @param name         The name of the property.
+     * @param defaultValue The value used if the property is not set.
+     * @return The value of the property.
+     */
+    public static int config(String name, int defaultValue) {
+        return Integer.getInteger(name, defaultValue);
+    }
+
+    private Bench() {
+    }
+
+    /**
+     * Runs the task for the warmup and then the measured iterations, and prints its throughput and the
+     * number of bytes it allocates per operation.
+     *
+     * @param name       The name printed for the task.
+     * @param operations The number of operations per iteration.
+     * @param task       The task to be measured.
+     * @throws Exception If the task fails.
+     */
+    public static void measure(String name, int operations, Task task) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.setup();
+            sink += task.run(operations);
+        }
+
+        double bestNanosPerOperation = Double.MAX_VALUE;
+        double totalNanosPerOperation = 0;
+        long allocated = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            task.setup();
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            sink += task.run(operations);
+            long elapsed = System.nanoTime() - start;
+            allocated += allocatedBytes() - allocatedBefore;
+            double nanosPerOperation = (double) elapsed / operations;
+            bestNanosPerOperation = Math.min(bestNanosPerOperation, nanosPerOperation);
+            totalNanosPerOperation += nanosPerOperation;
+        }
+
+        double meanNanosPerOperation = totalNanosPerOperation / MEASURED_ITERATIONS;
+        String allocation = allocatedBytes() < 0 ? "n/a" : String.format("%.1f", (double) allocated / ((long) operations * MEASURED_ITERATIONS));
+        System.out.println(String.format("%-40s %12.1f ops/s %10.1f ns/op (best %.1f) %10s B/op",
+                name, 1e9 / meanNanosPerOperation, meanNanosPerOperation, bestNanosPerOperation, allocation));
+    }
+
+    /**
+     * Returns a writer that discards everything written to it, for measuring without file I/O.
+     *
+     * @return A writer that discards its input.
+     */
+    public static Writer nullWriter() {
+        return new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static long allocatedBytes() { //Bytes allocated by the current thread, or -1 if the JVM cannot tell.
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BookingLoadTest {
+    /**
+     * Starts a BookingServer on a free local port over a fleet of -Dbench.voyages voyages (1000 by default) and
+     * drives it from -Dbench.clients client threads (16 by default) sending -Dbench.requests requests in total
+     * (50000 by default): half of them sell a seat, a quarter refund one and a quarter print a voyage. The first
+     * tenth of the requests warms the server up and is not measured. Prints the requests per second and the
+     * latency percentiles as seen by the clients.
+     */
+    public static void main(String[] args) throws Exception {
+        final int voyages = Bench.config("bench.voyages", 1000);
+        int clients = Bench.config("bench.clients", 16);
+        int requests = Bench.config("bench.requests", 50_000);
+        final WorkloadGenerator workload = new WorkloadGenerator(voyages, "sell:1", 42);
+
+        ConcurrentBookingEngine engine = new ConcurrentBookingEngine();
+        ReportSink discard = new ReportSink(Bench.nullWriter(), false);
+        for (int id = 1; id <= voyages; id++) {
+            engine.execute(CommandLine.of(workload.initLine(id).split("\t")), discard);
+        }
+        BookingServer server = new BookingServer(engine);
+        final String base = "http://localhost:" + server.start(0);
+
+        try {
+            run(base, workload, voyages, clients, requests / 10, null, null); //Warmup.
+            LatencyHistogram latencies = new LatencyHistogram();
+            AtomicLong failures = new AtomicLong();
+            long start = System.nanoTime();
+            run(base, workload, voyages, clients, requests, latencies, failures);
+            long elapsed = System.nanoTime() - start;
+
+            System.out.println(String.format(Locale.ROOT, "%d requests from %d clients in %.1f ms: %.0f requests/s",
+                    requests, clients, elapsed / 1e6, requests * 1e9 / elapsed));
+            System.out.println(String.format(Locale.ROOT, "latency us: mean %.1f, p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f",
+                    latencies.getMeanNanos() / 1e3, latencies.getValueAtPercentile(50) / 1e3,
+                    latencies.getValueAtPercentile(90) / 1e3, latencies.getValueAtPercentile(99) / 1e3,
+                    latencies.getValueAtPercentile(99.9) / 1e3, latencies.getMaxNanos() / 1e3));
+            System.out.println("requests that failed at the HTTP level: " + failures.get());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void run(final String base, final WorkloadGenerator workload, final int voyages, int clients,
+                            int requests, final LatencyHistogram latencies, final AtomicLong failures) throws InterruptedException {
+        Thread[] threads = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            final int count = requests / clients + (t < requests % clients ? 1 : 0);
+            final long seed = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < count; i++) {
+                        int id = 1 + random.nextInt(voyages);
+                        int seat = 1 + random.nextInt(workload.seats(id));
+                        int kind = random.nextInt(4);
+                        String path = kind < 2 ? "/sell?id=" + id + "&seats=" + seat
+                                : kind == 2 ? "/refund?id=" + id + "&seats=" + seat : "/print?id=" + id;
+                        long start = System.nanoTime();
+                        boolean isAnswered = send(base + path, kind < 3 ? "POST" : "GET");
+                        long elapsed = System.nanoTime() - start;
+                        if (latencies != null) {
+                            latencies.record(elapsed);
+                            if (!isAnswered) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static boolean send(String url, String method) { //Seat conflicts are answered with 400, which still counts as an answer.
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod(method);
+            int status = connection.getResponseCode();
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            byte[] buffer = new byte[1024];
+            while (body != null && body.read(buffer) >= 0) {
+                //The body is read to the end so that the connection is kept alive for the next request.
+            }
+            if (body != null) {
+                body.close();
+            }
+            return status == 200 || status == 400;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
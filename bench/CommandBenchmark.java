@@ -0,0 +1,156 @@
+import java.io.IOException;
+
+public class CommandBenchmark {
+    private static final WorkloadGenerator WORKLOAD = WorkloadGenerator.fromSystemProperties();
+    private static final int VOYAGES = Bench.config("bench.voyages", 10_000);
+
+    private static VoyageRegistry voyages;
+    private static VoyageManagement management;
+    private static ReportSink writer;
+
+    /**
+     * Measures each IVoyageManegement method on its own against a fleet of -Dbench.voyages voyages.
+     * Every iteration starts from a freshly built fleet, which is not part of the measurement.
+     */
+    public static void main(String[] args) throws Exception {
+        final CommandLine[] initLines = new CommandLine[VOYAGES];
+        final CommandLine[] printLines = new CommandLine[VOYAGES];
+        final CommandLine[] cancelLines = new CommandLine[VOYAGES];
+        for (int i = 0; i < VOYAGES; i++) {
+            initLines[i] = CommandLine.of(WORKLOAD.initLine(i + 1).split("\t"));
+            printLines[i] = CommandLine.of("PRINT_VOYAGE", String.valueOf(i + 1));
+            cancelLines[i] = CommandLine.of("CANCEL_VOYAGE", String.valueOf(i + 1));
+        }
+        final CommandLine[] seatLines = seatLines("SELL_TICKET");
+        final CommandLine[] refundLines = seatLines("REFUND_TICKET");
+        final CommandLine reportLine = CommandLine.of("Z_REPORT");
+
+        Bench.measure("initVoyage", VOYAGES, new Bench.Task() {
+            @Override
+            public void setup() {
+                reset();
+            }
+
+            @Override
+            public long run(int operations) throws IOException {
+                for (int i = 0; i < operations; i++) {
+                    management.initVoyage(initLines[i], voyages, writer);
+                }
+                return voyages.size();
+            }
+        });
+
+        Bench.measure("sellTicket (one seat)", seatLines.length, new Bench.Task() {
+            @Override
+            public void setup() throws IOException {
+                fleet(initLines, null);
+            }
+
+            @Override
+            public long run(int operations) throws IOException {
+                for (int i = 0; i < operations; i++) {
+                    management.sellTicket(seatLines[i], voyages, writer);
+                }
+                return voyages.size();
+            }
+        });
+
+        Bench.measure("refundTicket (one seat)", refundLines.length, new Bench.Task() {
+            @Override
+            public void setup() throws IOException {
+                fleet(initLines, seatLines);
+            }
+
+            @Override
+            public long run(int operations) throws IOException {
+                for (int i = 0; i < operations; i++) {
+                    management.refundTicket(refundLines[i], voyages, writer);
+                }
+                return voyages.size();
+            }
+        });
+
+        Bench.measure("cancelVoyage", VOYAGES, new Bench.Task() {
+            @Override
+            public void setup() throws IOException {
+                fleet(initLines, seatLines);
+            }
+
+            @Override
+            public long run(int operations) throws IOException {
+                for (int i = 0; i < operations; i++) {
+                    management.cancelVoyage(cancelLines[i], voyages, writer);
+                }
+                return voyages.size();
+            }
+        });
+
+        fleet(initLines, seatLines);
+        Bench.measure("printVoyage", VOYAGES, new Bench.Task() {
+            @Override
+            public long run(int operations) throws IOException {
+                for (int i = 0; i < operations; i++) {
+                    management.printVoyage(printLines[i], voyages, writer);
+                }
+                return voyages.size();
+            }
+        });
+
+        final CommandLine[] findLines = new CommandLine[VOYAGES]; //Every third seat is sold, so only some pairs are left.
+        for (int i = 0; i < VOYAGES; i++) {
+            findLines[i] = CommandLine.of("FIND_SEATS", String.valueOf(i + 1), "4", "PAIR");
+        }
+        Bench.measure("findSeats (4 pairs)", VOYAGES, new Bench.Task() {
+            @Override
+            public long run(int operations) throws IOException {
+                for (int i = 0; i < operations; i++) {
+                    management.findSeats(findLines[i], voyages, writer);
+                }
+                return voyages.size();
+            }
+        });
+
+        Bench.measure("ZReport (whole fleet)", 10, new Bench.Task() {
+            @Override
+            public long run(int operations) throws IOException {
+                for (int i = 0; i < operations; i++) {
+                    management.ZReport(reportLine, voyages, writer);
+                }
+                return voyages.size();
+            }
+        });
+    }
+
+    private static CommandLine[] seatLines(String command) { //Every third seat of every voyage, one seat per command.
+        int count = 0;
+        for (int id = 1; id <= VOYAGES; id++) {
+            count += (WORKLOAD.seats(id) + 2) / 3;
+        }
+        CommandLine[] lines = new CommandLine[count];
+        int index = 0;
+        for (int id = 1; id <= VOYAGES; id++) {
+            for (int seat = 1; seat <= WORKLOAD.seats(id); seat += 3) {
+                lines[index++] = CommandLine.of(command, String.valueOf(id), String.valueOf(seat));
+            }
+        }
+        return lines;
+    }
+
+    private static void reset() {
+        voyages = new VoyageRegistry();
+        management = new VoyageManagement(voyages);
+        writer = new ReportSink(Bench.nullWriter(), false);
+    }
+
+    private static void fleet(CommandLine[] initLines, CommandLine[] soldSeats) throws IOException {
+        reset();
+        for (CommandLine line : initLines) {
+            management.initVoyage(line, voyages, writer);
+        }
+        if (soldSeats != null) {
+            for (CommandLine line : soldSeats) {
+                management.sellTicket(line, voyages, writer);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+import java.io.IOException;
+
+public class ConcurrentBookingBenchmark {
+    /**
+     * Measures ConcurrentBookingEngine with 1, 2, 4... up to -Dbench.threads threads sharing one fleet. Every
+     * thread runs its own share of the generated commands into its own discarding sink. The allocation column
+     * only covers the measuring thread here, so it is not meaningful for this benchmark.
+     */
+    public static void main(String[] args) throws Exception {
+        final WorkloadGenerator workload = WorkloadGenerator.fromSystemProperties();
+        final int voyages = Bench.config("bench.voyages", 10_000);
+        final String[] generated = workload.generate(Bench.config("bench.commands", 200_000));
+        final CommandLine[] lines = new CommandLine[generated.length];
+        for (int i = 0; i < generated.length; i++) {
+            lines[i] = CommandLine.of(generated[i].split("\t"));
+        }
+        int maxThreads = Bench.config("bench.threads", Runtime.getRuntime().availableProcessors());
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            final int numberOfThreads = threads;
+            Bench.measure("ConcurrentBookingEngine (" + threads + " threads)", lines.length - voyages, new Bench.Task() {
+                private ConcurrentBookingEngine engine;
+
+                @Override
+                public void setup() throws Exception {
+                    engine = new ConcurrentBookingEngine();
+                    ReportSink writer = new ReportSink(Bench.nullWriter(), false);
+                    for (int i = 0; i < voyages; i++) {
+                        engine.execute(lines[i], writer);
+                    }
+                }
+
+                @Override
+                public long run(final int operations) throws Exception {
+                    Thread[] workers = new Thread[numberOfThreads];
+                    for (int t = 0; t < numberOfThreads; t++) {
+                        final int first = voyages + (int) ((long) operations * t / numberOfThreads);
+                        final int last = voyages + (int) ((long) operations * (t + 1) / numberOfThreads);
+                        workers[t] = new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                ReportSink writer = new ReportSink(Bench.nullWriter(), false);
+                                try {
+                                    for (int i = first; i < last; i++) {
+                                        engine.execute(lines[i], writer);
+                                    }
+                                } catch (IOException e) {
+                                    throw new IllegalStateException(e);
+                                }
+                            }
+                        });
+                        workers[t].start();
+                    }
+                    for (Thread worker : workers) {
+                        worker.join();
+                    }
+                    return engine.getVoyages().size();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import java.io.File;
+
+public class JournalBenchmark {
+    /**
+     * Compares restoring the voyages from a VoyageJournal with replaying the text commands that produced it, on a
+     * generated workload, and measures the cost of keeping the journal. The group size of the journal is set with
+     * -Dbench.groupSize.
+     */
+    public static void main(String[] args) throws Exception {
+        final String[] lines = WorkloadGenerator.fromSystemProperties().generate(Bench.config("bench.commands", 200_000));
+        final int groupSize = Bench.config("bench.groupSize", VoyageJournal.DEFAULT_GROUP_SIZE);
+        final File journalFile = File.createTempFile("voyages", ".journal");
+        journalFile.deleteOnExit();
+
+        Bench.measure("Operations, no journal (per command)", lines.length, new Bench.Task() {
+            @Override
+            public long run(int operations) throws Exception {
+                VoyageRegistry voyages = new VoyageRegistry();
+                ReportSink writer = new ReportSink(Bench.nullWriter(), false);
+                BookingSystem.Operations(new CommandReader(lines), writer, voyages, null);
+                writer.close();
+                return voyages.size();
+            }
+        });
+
+        Bench.measure("Operations, journal (per command)", lines.length, new Bench.Task() {
+            @Override
+            public void setup() {
+                journalFile.delete();
+            }
+
+            @Override
+            public long run(int operations) throws Exception {
+                VoyageRegistry voyages = new VoyageRegistry();
+                ReportSink writer = new ReportSink(Bench.nullWriter(), false);
+                VoyageJournal journal = VoyageJournal.open(journalFile.getPath(), voyages, groupSize);
+                BookingSystem.Operations(new CommandReader(lines), writer, voyages, journal);
+                journal.close();
+                writer.close();
+                return voyages.size();
+            }
+        });
+
+        //The journal of the last iteration holds the changes of the whole workload.
+        Bench.measure("Recovery from the journal (per command)", lines.length, new Bench.Task() {
+            @Override
+            public long run(int operations) throws Exception {
+                VoyageRegistry voyages = new VoyageRegistry();
+                VoyageJournal journal = VoyageJournal.open(journalFile.getPath(), voyages, groupSize);
+                journal.close();
+                return voyages.size();
+            }
+        });
+    }
+}
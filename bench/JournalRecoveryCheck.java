@@ -0,0 +1,124 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Random;
+
+public class JournalRecoveryCheck {
+    /**
+     * Crashes a journaled run of a generated workload after a random number of input lines, -Dbench.crashes times,
+     * and checks that running BookingSystem again on the same input and journal continues the crashed run, so that
+     * the output file is exactly that of a run that never crashed, and that a run on another input afterwards
+     * starts from the voyages the completed run left. Every fourth crash is followed by a run on the other input
+     * instead, which must not be taken for the crashed one: it starts at its first line, from the voyages the
+     * crashed run committed. The crash is simulated by abandoning the journal and the output file without closing
+     * them, which loses whatever they had not written yet.
+     */
+    public static void main(String[] args) throws Exception {
+        int commands = Bench.config("bench.commands", 20_000);
+        int crashes = Bench.config("bench.crashes", 20);
+        int groupSize = Bench.config("bench.groupSize", 16);
+        File directory = Files.createTempDirectory("journal-check").toFile();
+        File input = write(new File(directory, "input.txt"), new WorkloadGenerator(500, "sell:5500,refund:2500,cancel:190,print:1800,report:10", 1).generate(commands));
+        File nextInput = write(new File(directory, "next.txt"), new WorkloadGenerator(500, "sell:5500,refund:2500,cancel:190,print:1800,report:10", 2).generate(commands / 4));
+
+        //The reference: the whole input, then the next one, on a journal that never crashed.
+        File referenceJournal = new File(directory, "reference.journal");
+        File expected = new File(directory, "expected.txt");
+        File expectedNext = new File(directory, "expected-next.txt");
+        BookingSystem.processFile(input.getPath(), expected.getPath(), referenceJournal.getPath(), null, null);
+        BookingSystem.processFile(nextInput.getPath(), expectedNext.getPath(), referenceJournal.getPath(), null, null);
+
+        Random random = new Random(7);
+        int failures = 0;
+        for (int i = 0; i < crashes; i++) {
+            File journal = new File(directory, "crash.journal");
+            File output = new File(directory, "output.txt");
+            journal.delete();
+            int crashAt = random.nextInt(commands);
+            crash(input, output, journal, crashAt, groupSize);
+            if (i % 4 == 3) {
+                boolean isStarted = runOtherInput(input, nextInput, journal, directory);
+                if (isStarted == false) {
+                    failures++;
+                }
+                System.out.println("crash after " + crashAt + " lines, then another input: output "
+                        + (isStarted ? "matches" : "DIFFERS"));
+                continue;
+            }
+
+            BookingSystem.processFile(input.getPath(), output.getPath(), journal.getPath(), null, null);
+            boolean isResumed = Arrays.equals(Files.readAllBytes(output.toPath()), Files.readAllBytes(expected.toPath()));
+            File nextOutput = new File(directory, "output-next.txt");
+            BookingSystem.processFile(nextInput.getPath(), nextOutput.getPath(), journal.getPath(), null, null);
+            boolean isContinued = Arrays.equals(Files.readAllBytes(nextOutput.toPath()), Files.readAllBytes(expectedNext.toPath()));
+            if (isResumed == false || isContinued == false) {
+                failures++;
+            }
+            System.out.println("crash after " + crashAt + " lines: resumed output " + (isResumed ? "matches" : "DIFFERS")
+                    + ", next run " + (isContinued ? "matches" : "DIFFERS"));
+        }
+        System.out.println(failures == 0 ? "All " + crashes + " crashes recovered." : failures + " of " + crashes + " crashes FAILED.");
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private static void crash(File input, File output, File journalFile, final int crashAt, int groupSize) throws IOException {
+        VoyageRegistry voyages = new VoyageRegistry();
+        VoyageJournal journal = VoyageJournal.open(journalFile.getPath(), voyages, groupSize);
+        journal.startRun(input.getPath(), output.getPath());
+        ReportSink writer = ReportSink.open(output.getPath());
+        CommandReader reader = new CommandReader(new InputStreamReader(new FileInputStream(input), StandardCharsets.UTF_8)) {
+            private int lines;
+
+            @Override
+            public boolean next(CommandLine line) throws IOException {
+                if (lines++ == crashAt) {
+                    throw new IllegalStateException("Simulated crash");
+                }
+                return super.next(line);
+            }
+        };
+        try {
+            BookingSystem.Operations(reader, writer, voyages, journal);
+        } catch (IllegalStateException e) { //Neither the journal nor the output is closed, as after a real crash.
+        }
+        reader.close();
+    }
+
+    private static boolean runOtherInput(File input, File nextInput, File journal, File directory) throws IOException {
+        //A copy of the journal tells how many lines of the crashed run are committed, without changing the journal.
+        File copy = new File(directory, "copy.journal");
+        Files.copy(journal.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        VoyageRegistry expected = new VoyageRegistry();
+        VoyageJournal copyJournal = VoyageJournal.open(copy.getPath(), new VoyageRegistry(), 1);
+        long committedLines = copyJournal.getResumedLines();
+        copyJournal.close();
+        String[] lines = Files.readAllLines(input.toPath(), StandardCharsets.UTF_8).toArray(new String[0]);
+        BookingSystem.Operations(new CommandReader(Arrays.copyOf(lines, (int) committedLines)), ReportSink.inMemory(), expected, null);
+        File expectedOutput = new File(directory, "expected-other.txt");
+        ReportSink writer = ReportSink.open(expectedOutput.getPath());
+        BookingSystem.Operations(CommandReader.open(nextInput.getPath()), writer, expected, null);
+        writer.close();
+
+        File output = new File(directory, "output-other.txt");
+        BookingSystem.processFile(nextInput.getPath(), output.getPath(), journal.getPath(), null, null);
+        return Arrays.equals(Files.readAllBytes(output.toPath()), Files.readAllBytes(expectedOutput.toPath()));
+    }
+
+    private static File write(File file, String[] lines) throws IOException {
+        PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8));
+        for (String line : lines) {
+            out.println(line);
+        }
+        out.close();
+        return file;
+    }
+}
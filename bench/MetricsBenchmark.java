@@ -0,0 +1,23 @@
+public class MetricsBenchmark {
+    /**
+     * Measures BookingSystem.Operations on a generated workload with the metrics disabled and then enabled, to
+     * show what recording every command costs.
+     */
+    public static void main(String[] args) throws Exception {
+        final String[] lines = WorkloadGenerator.fromSystemProperties().generate(Bench.config("bench.commands", 200_000));
+        Bench.Task operations = new Bench.Task() {
+            @Override
+            public long run(int operations) throws Exception {
+                ReportSink writer = new ReportSink(Bench.nullWriter(), false);
+                BookingSystem.Operations(new CommandReader(lines), writer);
+                writer.close();
+                return lines.length;
+            }
+        };
+
+        Bench.measure("Operations, metrics disabled (per command)", lines.length, operations);
+        BookingMetrics metrics = BookingMetrics.enable(); //Every VoyageManagement created from now on records its commands.
+        Bench.measure("Operations, metrics enabled (per command)", lines.length, operations);
+        metrics.printSummary(System.out);
+    }
+}
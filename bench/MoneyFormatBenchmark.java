@@ -0,0 +1,39 @@
+import java.text.DecimalFormat;
+
+public class MoneyFormatBenchmark {
+    private static final int VALUES = 1024;
+
+    public static void main(String[] args) throws Exception {
+        final double[] values = new double[VALUES]; //Prices and revenues of the kind found in the reports.
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = (i * 37 % 100000) / 100.0 + (i % 3) * 12.345;
+        }
+        final ReportSink writer = ReportSink.inMemory();
+
+        Bench.measure("DecimalFormat per call (previous)", 1_000_000, new Bench.Task() {
+            @Override
+            public long run(int operations) {
+                long length = 0;
+                for (int i = 0; i < operations; i++) {
+                    DecimalFormat df = new DecimalFormat("0.00");
+                    length += df.format(values[i & (VALUES - 1)]).replace(',', '.').length();
+                }
+                return length;
+            }
+        });
+
+        Bench.measure("MoneyFormat.append", 1_000_000, new Bench.Task() {
+            @Override
+            public long run(int operations) throws Exception {
+                writer.reset();
+                for (int i = 0; i < operations; i++) {
+                    if ((i & (VALUES - 1)) == 0) {
+                        writer.reset(); //Keeps the in-memory buffer small without allocating.
+                    }
+                    MoneyFormat.append(writer, values[i & (VALUES - 1)]);
+                }
+                return writer.toString().length();
+            }
+        });
+    }
+}
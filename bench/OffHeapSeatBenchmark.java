@@ -0,0 +1,69 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+public class OffHeapSeatBenchmark {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    /**
+     * Loads -Dbench.voyages voyages (1000000 by default) of -Dbench.rows rows, sells a few seats of each one and
+     * prints, with the seats on the heap and then in an OffHeapSeatStore, the retained heap, the direct memory
+     * of the store, the shortest of five full collections with the fleet alive, and the time of a stream of
+     * sales and refunds on random voyages. Run it with a heap of a few GB.
+     */
+    public static void main(String[] args) throws Exception {
+        int voyages = Bench.config("bench.voyages", 1_000_000);
+        int rows = Bench.config("bench.rows", 40);
+        int commands = Bench.config("bench.commands", 2_000_000);
+
+        measure("Heap seats", SeatStore.HEAP, voyages, rows, commands);
+        OffHeapSeatStore store = new OffHeapSeatStore();
+        measure("Off-heap seats", store, voyages, rows, commands);
+        System.out.printf("%-16s %10.1f MB direct memory in use, %.1f MB allocated%n", "Off-heap seats",
+                store.getUsedBytes() / 1e6, store.getCapacity() / 1e6);
+    }
+
+    private static void measure(String name, SeatStore store, int voyages, int rows, int commands) throws Exception {
+        long empty = retainedHeap();
+        VoyageRegistry registry = new VoyageRegistry(store);
+        VoyageManagement voyageManagement = new VoyageManagement(registry);
+        ReportSink writer = new ReportSink(Bench.nullWriter(), false);
+        CommandLine line = new CommandLine();
+        for (int i = 1; i <= voyages; i++) {
+            line.set("INIT_VOYAGE\tStandard\t" + i + "\tAnkara\tIstanbul\t" + rows + "\t400\t10");
+            voyageManagement.voyageManagementOperation(line, writer);
+            line.set("SELL_TICKET\t" + i + "\t1_" + (rows * 4));
+            voyageManagement.voyageManagementOperation(line, writer);
+        }
+        long heap = retainedHeap() - empty;
+
+        long fullCollection = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            System.gc();
+            fullCollection = Math.min(fullCollection, System.nanoTime() - start);
+        }
+
+        long start = System.nanoTime();
+        long seed = 42;
+        for (int i = 0; i < commands; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int voyageID = 1 + (int) ((seed >>> 33) % voyages);
+            int seat = 2 + (int) ((seed >>> 20) % (rows * 4 - 2));
+            line.set((i % 2 == 0 ? "SELL_TICKET\t" : "REFUND_TICKET\t") + voyageID + "\t" + seat);
+            voyageManagement.voyageManagementOperation(line, writer);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-16s %10.1f MB heap %8.1f B/voyage  full GC %7.1f ms  %d commands in %.0f ms (%d voyages)%n",
+                name, heap / 1e6, (double) heap / voyages, fullCollection / 1e6, commands, elapsed / 1e6,
+                registry.size());
+    }
+
+    private static long retainedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,33 @@
+public class OperationsBenchmark {
+    /**
+     * Measures BookingSystem.Operations end to end on a generated workload, with the output discarded.
+     * The fleet size and the command mix are set with -Dbench.voyages and -Dbench.mix, the number of
+     * commands with -Dbench.commands. With -Dbench.shards above one, ShardedOperations is measured as well.
+     */
+    public static void main(String[] args) throws Exception {
+        final String[] lines = WorkloadGenerator.fromSystemProperties().generate(Bench.config("bench.commands", 200_000));
+
+        Bench.measure("Operations (per command)", lines.length, new Bench.Task() {
+            @Override
+            public long run(int operations) throws Exception {
+                ReportSink writer = new ReportSink(Bench.nullWriter(), false);
+                BookingSystem.Operations(new CommandReader(lines), writer);
+                writer.close();
+                return lines.length;
+            }
+        });
+
+        final int shards = Bench.config("bench.shards", 1);
+        if (shards > 1) {
+            Bench.measure("ShardedOperations, " + shards + " shards (per command)", lines.length, new Bench.Task() {
+                @Override
+                public long run(int operations) throws Exception {
+                    ReportSink writer = new ReportSink(Bench.nullWriter(), false);
+                    new ShardedOperations(shards).run(new CommandReader(lines), writer);
+                    writer.close();
+                    return lines.length;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,62 @@
+public class RouteSearchBenchmark {
+    /**
+     * Measures finding the voyages of a route in a fleet of -Dbench.voyages voyages (100000 by default) through the
+     * route index, against scanning every voyage of the registry, and the whole SEARCH_VOYAGES command.
+     */
+    public static void main(String[] args) throws Exception {
+        int voyages = Bench.config("bench.voyages", 100_000);
+        WorkloadGenerator workload = new WorkloadGenerator(voyages, "sell:1", 42);
+        final VoyageRegistry fleet = new VoyageRegistry();
+        final VoyageManagement management = new VoyageManagement(fleet);
+        final ReportSink writer = new ReportSink(Bench.nullWriter(), false);
+        for (String line : workload.generate(voyages)) {
+            management.voyageManagementOperation(CommandLine.of(line.split("\t")), writer);
+        }
+        final String from = "Ankara";
+        final String to = "Sinop";
+        final CommandLine searchLine = CommandLine.of("SEARCH_VOYAGES", from, to);
+
+        Bench.measure("Route index (per search)", 1000, new Bench.Task() {
+            @Override
+            public long run(int operations) {
+                long freeSeats = 0;
+                for (int i = 0; i < operations; i++) {
+                    for (Voyage voyage : fleet.findRoute(from, to)) {
+                        freeSeats += voyage.getSeatMap().countFreeRegular() + voyage.getSeatMap().countFreePremium();
+                    }
+                }
+                return freeSeats;
+            }
+        });
+
+        Bench.measure("Full scan of the registry (per search)", 10, new Bench.Task() {
+            @Override
+            public long run(int operations) {
+                long freeSeats = 0;
+                for (int i = 0; i < operations; i++) {
+                    for (Voyage voyage : fleet) {
+                        if (voyage.getFrom().equals(from) && voyage.getTo().equals(to)) {
+                            freeSeats += voyage.getSeatMap().countFreeRegular() + voyage.getSeatMap().countFreePremium();
+                        }
+                    }
+                }
+                return freeSeats;
+            }
+        });
+
+        Bench.measure("SEARCH_VOYAGES with its output (per search)", 100, new Bench.Task() {
+            @Override
+            public long run(int operations) throws Exception {
+                for (int i = 0; i < operations; i++) {
+                    management.searchVoyages(searchLine, fleet, writer);
+                }
+                return operations;
+            }
+        });
+        int found = 0;
+        for (Voyage voyage : fleet.findRoute(from, to)) {
+            found++;
+        }
+        System.out.println(from + " to " + to + ": " + found + " of " + fleet.size() + " voyages");
+    }
+}
@@ -0,0 +1,62 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+public class SeatMemoryBenchmark {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    /**
+     * Prints the heap retained by -Dbench.voyages initialized voyages (1000000 by default) of -Dbench.rows rows
+     * while none of them is sold, after a Z_REPORT over them, and once a seat of each one is sold and reported
+     * again, which gives every voyage its seat storage and its cached details. Run it with a heap of a few GB.
+     */
+    public static void main(String[] args) throws Exception {
+        int voyages = Bench.config("bench.voyages", 1_000_000);
+        int rows = Bench.config("bench.rows", 15);
+        String[] types = {"Standard", "Premium", "Minibus"};
+
+        long empty = retainedHeap();
+        VoyageRegistry registry = new VoyageRegistry();
+        VoyageManagement voyageManagement = new VoyageManagement(registry);
+        ReportSink writer = new ReportSink(Bench.nullWriter(), false);
+        CommandLine line = new CommandLine();
+        for (int i = 1; i <= voyages; i++) {
+            String type = types[i % types.length];
+            if (type.equals("Minibus")) {
+                line.set("INIT_VOYAGE\tMinibus\t" + i + "\tAnkara\tIstanbul\t" + rows + "\t300");
+            } else if (type.equals("Premium")) {
+                line.set("INIT_VOYAGE\tPremium\t" + i + "\tAnkara\tIstanbul\t" + rows + "\t400\t10\t50");
+            } else {
+                line.set("INIT_VOYAGE\tStandard\t" + i + "\tAnkara\tIstanbul\t" + rows + "\t400\t10");
+            }
+            voyageManagement.voyageManagementOperation(line, writer);
+        }
+        print("Unsold voyages", retainedHeap() - empty, voyages);
+
+        line.set("Z_REPORT");
+        voyageManagement.voyageManagementOperation(line, writer);
+        print("Unsold voyages after Z_REPORT", retainedHeap() - empty, voyages);
+
+        for (int i = 1; i <= voyages; i++) {
+            line.set("SELL_TICKET\t" + i + "\t1");
+            voyageManagement.voyageManagementOperation(line, writer);
+        }
+        print("One seat sold on each", retainedHeap() - empty, voyages);
+
+        line.set("Z_REPORT");
+        voyageManagement.voyageManagementOperation(line, writer);
+        print("One seat sold on each after Z_REPORT", retainedHeap() - empty, voyages);
+        System.out.println(registry.size() + " voyages");
+    }
+
+    private static void print(String name, long bytes, int voyages) {
+        System.out.printf("%-40s %10.1f MB %10.1f B/voyage%n", name, bytes / 1e6, (double) bytes / voyages);
+    }
+
+    private static long retainedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
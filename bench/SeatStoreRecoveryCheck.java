@@ -0,0 +1,112 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+public class SeatStoreRecoveryCheck {
+    /**
+     * Crashes runs on a seat store and checks that the store opened again holds the voyages as of its last commit,
+     * and that it still does once a run after the crash has committed changes of its own and the store is opened a
+     * third time. The first crash loses the second sale of a voyage with more seats than a record holds, which are
+     * kept in an extent; the others, -Dbench.crashes of them, stop a
+     * generated workload after a random number of input lines and compare the voyages with a run that never crashed.
+     * The store is committed every -Dbench.commitLines lines, and a crash is simulated by abandoning the store
+     * without closing it, which leaves whatever was written after the last commit in the file.
+     */
+    public static void main(String[] args) throws Exception {
+        int commands = Bench.config("bench.commands", 20_000);
+        int crashes = Bench.config("bench.crashes", 20);
+        int commitLines = Bench.config("bench.commitLines", 500);
+        File directory = Files.createTempDirectory("seat-store-check").toFile();
+        File store = new File(directory, "voyages.store");
+        int failures = 0;
+
+        //Run 1 sells seat 1, commits, sells seat 2 and crashes; run 2 sells seat 100, in another word, and adds
+        // another voyage; run 3 must see seats 1 and 100, but not seat 2.
+        run(store, new String[]{"INIT_VOYAGE\tStandard\t1\tAnkara\tKonya\t1000\t100\t10", "SELL_TICKET\t1\t1"}, true);
+        run(store, new String[]{"SELL_TICKET\t1\t2"}, false);
+        boolean isRestored = describe(store).equals(describe(1, 100, 4000 / 64 + 1, 1));
+        run(store, new String[]{"SELL_TICKET\t1\t100", "INIT_VOYAGE\tStandard\t2\tAnkara\tRize\t10\t100\t10"}, true);
+        String reopened = describe(store);
+        boolean isContinued = reopened.startsWith(describe(1, 200, 4000 / 64 + 1, 1, 100)) && reopened.contains("\n2 ");
+        System.out.println("lost second sale: reopened store " + (isRestored ? "matches" : "DIFFERS")
+                + ", after the next commit " + (isContinued ? "matches" : "DIFFERS"));
+        if (isRestored == false || isContinued == false) {
+            failures++;
+        }
+
+        String mix = "sell:5500,refund:2500,cancel:190,print:1800,report:10";
+        String[] input = new WorkloadGenerator(500, mix, 1).generate(commands);
+        String[] nextInput = new WorkloadGenerator(500, mix, 2).generate(commands / 4);
+        Random random = new Random(7);
+        for (int i = 0; i < crashes; i++) {
+            int crashAt = random.nextInt(input.length);
+            int committed = crashAt / commitLines * commitLines;
+            store.delete();
+            for (int start = 0; start < crashAt; start += commitLines) {
+                run(store, Arrays.copyOfRange(input, start, Math.min(start + commitLines, crashAt)), start + commitLines <= crashAt);
+            }
+
+            VoyageRegistry expected = new VoyageRegistry();
+            BookingSystem.Operations(new CommandReader(Arrays.copyOf(input, committed)), ReportSink.inMemory(), expected, null);
+            isRestored = describe(store).equals(describe(expected));
+            run(store, nextInput, true);
+            BookingSystem.Operations(new CommandReader(nextInput), ReportSink.inMemory(), expected, null);
+            isContinued = describe(store).equals(describe(expected));
+            if (isRestored == false || isContinued == false) {
+                failures++;
+            }
+            System.out.println("crash after " + crashAt + " lines: reopened store " + (isRestored ? "matches" : "DIFFERS")
+                    + ", next run " + (isContinued ? "matches" : "DIFFERS"));
+        }
+        System.out.println(failures == 0 ? "All " + (crashes + 1) + " crashes recovered." : failures + " of " + (crashes + 1) + " crashes FAILED.");
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private static void run(File file, String[] lines, boolean isClosed) throws IOException {
+        //The group is larger than any run, so the store is only committed when it is closed.
+        MappedSeatStore store = MappedSeatStore.open(file.getPath(), Integer.MAX_VALUE);
+        BookingSystem.Operations(new CommandReader(lines), ReportSink.inMemory(), new VoyageRegistry(store, store), store);
+        if (isClosed) {
+            store.close();
+        }
+    }
+
+    private static String describe(File file) throws IOException {
+        MappedSeatStore store = MappedSeatStore.open(file.getPath(), Integer.MAX_VALUE);
+        try {
+            return describe(new VoyageRegistry(store, store));
+        } finally {
+            store.close();
+        }
+    }
+
+    private static String describe(VoyageRegistry voyages) { //The ID, revenue and seats of every voyage, one voyage per line.
+        StringBuilder description = new StringBuilder();
+        for (Voyage voyage : voyages) {
+            description.append(voyage.getVoyageID()).append(' ').append(voyage.getRevenue());
+            SeatMap seatMap = voyage.getSeatMap();
+            for (int i = 0; i < seatMap.getNumberOfWords(); i++) {
+                description.append(' ').append(Long.toHexString(seatMap.getWord(i)));
+            }
+            description.append('\n');
+        }
+        return description.toString();
+    }
+
+    private static String describe(int voyageID, double revenue, int numberOfWords, int... seats) {
+        long[] words = new long[numberOfWords];
+        for (int seat : seats) {
+            words[(seat - 1) / 64] |= 1L << ((seat - 1) % 64);
+        }
+        StringBuilder description = new StringBuilder().append(voyageID).append(' ').append(revenue);
+        for (long word : words) {
+            description.append(' ').append(Long.toHexString(word));
+        }
+        return description.append('\n').toString();
+    }
+}
@@ -0,0 +1,69 @@
+public class SellBatcherBenchmark {
+    private static final int ROWS = 50;
+
+    /**
+     * Measures single seat SELL_TICKET and REFUND_TICKET commands from -Dbench.threads threads that all aim at a
+     * few popular voyages, executed directly on ConcurrentBookingEngine and through a SellBatcher. Every thread
+     * sells a seat and refunds it again, so the seats never run out. Both run every command through the same
+     * handlers and update the seat map seat by seat; what differs is that the SellBatcher takes the registry
+     * lock, a dispatcher and the voyage lock once for a whole batch instead of once per command, so the
+     * difference measured is the cost of those hand-offs.
+     */
+    public static void main(String[] args) throws Exception {
+        final int voyages = Bench.config("bench.voyages", 4);
+        final int threads = Bench.config("bench.threads", 16);
+        final int maxBatch = Bench.config("bench.batch", 64);
+        final long windowNanos = Bench.config("bench.windowMicros", 0) * 1000L;
+        final int operations = Bench.config("bench.commands", 100_000);
+
+        measure("ConcurrentBookingEngine (" + threads + " threads)", voyages, threads, operations, null);
+        measure("SellBatcher, one lock hold per batch (" + threads + " threads)", voyages, threads, operations,
+                new long[]{maxBatch, windowNanos});
+    }
+
+    private static void measure(String name, final int voyages, final int threads, int operations, final long[] batching) throws Exception {
+        Bench.measure(name, operations, new Bench.Task() {
+            private ConcurrentBookingEngine engine;
+            private SellBatcher batcher;
+
+            @Override
+            public void setup() {
+                engine = new ConcurrentBookingEngine();
+                for (int i = 1; i <= voyages; i++) {
+                    engine.execute(new String[]{"INIT_VOYAGE", "Standard", String.valueOf(i), "Ankara", "Istanbul",
+                            String.valueOf(ROWS), "400", "10"});
+                }
+                batcher = batching == null ? null : new SellBatcher(engine, (int) batching[0], batching[1]);
+            }
+
+            @Override
+            public long run(final int operations) throws Exception {
+                Thread[] workers = new Thread[threads];
+                final long[] sold = new long[threads];
+                for (int t = 0; t < threads; t++) {
+                    final int thread = t;
+                    workers[t] = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            //Each thread has seats of its own, so a refund always follows its sale.
+                            String seat = String.valueOf(1 + thread % (ROWS * 4));
+                            for (int i = thread; i < operations; i += threads) {
+                                String voyageID = String.valueOf(1 + (i / threads) / 2 % voyages);
+                                String[] fields = {i / threads % 2 == 0 ? "SELL_TICKET" : "REFUND_TICKET", voyageID, seat};
+                                String output = batcher == null ? engine.execute(fields) : batcher.execute(fields);
+                                sold[thread] += output.length();
+                            }
+                        }
+                    });
+                    workers[t].start();
+                }
+                long total = 0;
+                for (int t = 0; t < threads; t++) {
+                    workers[t].join();
+                    total += sold[t];
+                }
+                return total;
+            }
+        });
+    }
+}
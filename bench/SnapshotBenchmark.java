@@ -0,0 +1,49 @@
+import java.io.File;
+
+public class SnapshotBenchmark {
+    /**
+     * Measures saving and loading a VoyageSnapshot of a fleet of -Dbench.voyages voyages (100000 by default)
+     * after -Dbench.commands generated commands, against replaying those commands.
+     */
+    public static void main(String[] args) throws Exception {
+        int voyages = Bench.config("bench.voyages", 100_000);
+        final String[] lines = new WorkloadGenerator(voyages, System.getProperty("bench.mix", "sell:7000,refund:2000,print:1000"), 42)
+                .generate(Bench.config("bench.commands", 300_000));
+        final File snapshotFile = File.createTempFile("voyages", ".snapshot");
+        snapshotFile.deleteOnExit();
+
+        final VoyageRegistry fleet = new VoyageRegistry();
+        ReportSink discard = new ReportSink(Bench.nullWriter(), false);
+        BookingSystem.Operations(new CommandReader(lines), discard, fleet, null);
+        discard.close();
+
+        Bench.measure("Replay of the commands (per voyage)", voyages, new Bench.Task() {
+            @Override
+            public long run(int operations) throws Exception {
+                VoyageRegistry registry = new VoyageRegistry();
+                ReportSink writer = new ReportSink(Bench.nullWriter(), false);
+                BookingSystem.Operations(new CommandReader(lines), writer, registry, null);
+                writer.close();
+                return registry.size();
+            }
+        });
+
+        Bench.measure("VoyageSnapshot.save (per voyage)", voyages, new Bench.Task() {
+            @Override
+            public long run(int operations) throws Exception {
+                VoyageSnapshot.save(fleet, snapshotFile.getPath());
+                return snapshotFile.length();
+            }
+        });
+
+        Bench.measure("VoyageSnapshot.load (per voyage)", voyages, new Bench.Task() {
+            @Override
+            public long run(int operations) throws Exception {
+                VoyageRegistry registry = new VoyageRegistry();
+                VoyageSnapshot.load(snapshotFile.getPath(), registry);
+                return registry.size();
+            }
+        });
+        System.out.println("Snapshot of " + voyages + " voyages: " + snapshotFile.length() + " bytes");
+    }
+}
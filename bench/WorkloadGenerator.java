@@ -0,0 +1,146 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+public class WorkloadGenerator {
+    private static final String[] TYPES = {"Standard", "Premium", "Minibus"};
+    private static final String[] CITIES = {"Ankara", "\u0130stanbul", "\u0130zmir", "Sinop", "Rize", "Polatl\u0131", "Bursa", "Konya"};
+
+    private final int numberOfVoyages;
+    private final int[] mix; //Relative weights of SELL_TICKET, REFUND_TICKET, CANCEL_VOYAGE, PRINT_VOYAGE and Z_REPORT.
+    private final Random random;
+
+    /**
+     * Constructs a WorkloadGenerator for a fleet of the given size.
+     *
+     * @param numberOfVoyages The number of voyages, with IDs from 1 to numberOfVoyages.
+     * @param mix             The command mix as "sell:w,refund:w,cancel:w,print:w,report:w" with relative weights.
+     * @param seed            The seed of the random generator, so that a workload can be reproduced.
+     */
+    public WorkloadGenerator(int numberOfVoyages, String mix, long seed) {
+        this.numberOfVoyages = numberOfVoyages;
+        this.mix = parseMix(mix);
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Creates a WorkloadGenerator configured by the bench.voyages and bench.mix system properties.
+     *
+     * @return The configured WorkloadGenerator.
+     */
+    public static WorkloadGenerator fromSystemProperties() {
+        return new WorkloadGenerator(Bench.config("bench.voyages", 10_000),
+                System.getProperty("bench.mix", "sell:5500,refund:2500,cancel:190,print:1800,report:10"), 42);
+    }
+
+    /**
+     * Returns the INIT_VOYAGE line of the voyage with the given ID. The type cycles through Standard,
+     * Premium and Minibus.
+     *
+     * @param voyageID The ID of the voyage.
+     * @return The tab-delimited command line.
+     */
+    public String initLine(int voyageID) {
+        String type = TYPES[voyageID % TYPES.length];
+        String line = "INIT_VOYAGE\t" + type + "\t" + voyageID + "\t" + CITIES[voyageID % CITIES.length] + "\t"
+                + CITIES[(voyageID / CITIES.length + 1 + voyageID) % CITIES.length] + "\t" + rows(voyageID) + "\t" + (100 + voyageID % 400);
+        if (type.equals("Standard")) {
+            line += "\t" + voyageID % 30;
+        } else if (type.equals("Premium")) {
+            line += "\t" + voyageID % 30 + "\t" + voyageID % 50;
+        }
+        return line;
+    }
+
+    /**
+     * Returns the number of seats of the voyage with the given ID as created by initLine.
+     *
+     * @param voyageID The ID of the voyage.
+     * @return The number of seats.
+     */
+    public int seats(int voyageID) {
+        int[] seatsPerRow = {4, 3, 2};
+        return rows(voyageID) * seatsPerRow[voyageID % TYPES.length];
+    }
+
+    /**
+     * Generates a workload that initializes every voyage and then runs the given number of commands in the
+     * configured mix. Commands may target sold, empty or cancelled seats and voyages, so error paths are covered too.
+     *
+     * @param numberOfCommands The number of commands after the INIT_VOYAGE lines.
+     * @return The command lines.
+     */
+    public String[] generate(int numberOfCommands) {
+        String[] lines = new String[numberOfVoyages + numberOfCommands];
+        for (int i = 0; i < numberOfVoyages; i++) {
+            lines[i] = initLine(i + 1);
+        }
+        int totalWeight = 0;
+        for (int weight : mix) {
+            totalWeight += weight;
+        }
+
+        for (int i = numberOfVoyages; i < lines.length; i++) {
+            int voyageID = 1 + random.nextInt(numberOfVoyages);
+            int pick = random.nextInt(totalWeight);
+            if ((pick -= mix[0]) < 0) {
+                lines[i] = "SELL_TICKET\t" + voyageID + "\t" + seatList(voyageID);
+            } else if ((pick -= mix[1]) < 0) {
+                lines[i] = "REFUND_TICKET\t" + voyageID + "\t" + seatList(voyageID);
+            } else if ((pick -= mix[2]) < 0) {
+                lines[i] = "CANCEL_VOYAGE\t" + voyageID;
+            } else if ((pick -= mix[3]) < 0) {
+                lines[i] = "PRINT_VOYAGE\t" + voyageID;
+            } else {
+                lines[i] = "Z_REPORT";
+            }
+        }
+        return lines;
+    }
+
+    private String seatList(int voyageID) { //One to three distinct seats of the voyage.
+        int seats = seats(voyageID);
+        int first = 1 + random.nextInt(seats);
+        StringBuilder list = new StringBuilder().append(first);
+        int count = random.nextInt(3);
+        for (int i = 1; i <= count && first + i <= seats; i++) {
+            list.append('_').append(first + i);
+        }
+        return list.toString();
+    }
+
+    private static int rows(int voyageID) {
+        return 5 + voyageID % 16;
+    }
+
+    private static int[] parseMix(String mix) {
+        String[] names = {"sell", "refund", "cancel", "print", "report"};
+        int[] weights = new int[names.length];
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            int index = Arrays.asList(names).indexOf(parts[0].trim());
+            if (index < 0 || parts.length != 2) {
+                throw new IllegalArgumentException("Unknown command mix entry \"" + entry + "\"");
+            }
+            weights[index] = Integer.parseInt(parts[1].trim());
+        }
+        return weights;
+    }
+
+    /**
+     * Writes a generated workload to a file, so that it can also be run through BookingSystem.
+     * Usage: java WorkloadGenerator output.txt [numberOfCommands]
+     */
+    public static void main(String[] args) throws IOException {
+        int numberOfCommands = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8));
+        for (String line : fromSystemProperties().generate(numberOfCommands)) {
+            out.println(line);
+        }
+        out.close();
+    }
+}
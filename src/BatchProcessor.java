@@ -0,0 +1,170 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+public class BatchProcessor {
+    private final int workers;
+
+    /**
+     * Constructs a BatchProcessor that processes at most the given number of files at the same time.
+     *
+     * @param workers The number of files processed at the same time.
+     */
+    public BatchProcessor(int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Runs the batch mode: "--batch inputDirectory outputDirectory" processes every file of the input directory
+     * into a file of the same name in the output directory, and "--batch manifest" processes the input/output
+     * pairs listed in the manifest, one tab separated pair per line. Every file goes through its own Operations
+     * pipeline, so its output is the same as when it is processed on its own, and a timing summary is printed.
+     *
+     * @param args The command line arguments, the first one being "--batch".
+     */
+    public static void main(String[] args) {
+        if (args.length != 2 && args.length != 3) {
+            System.out.println("ERROR: The batch mode works with either a manifest file or an input and an output directory." +
+                    " Sample usage can be as follows: \"java8 BookingSystem --batch inputs outputs\". Program is going to terminate!");
+            return;
+        }
+
+        List<String[]> jobs;
+        try {
+            File source = new File(args[1]);
+            if (source.isDirectory()) {
+                if (args.length != 3) {
+                    System.out.println("ERROR: An output directory must be given to process the \"" + args[1] + "\" directory. Program is going to terminate!");
+                    return;
+                }
+                jobs = directoryJobs(source, new File(args[2]));
+            } else if (args.length == 2 && source.isFile() && source.canRead()) {
+                jobs = manifestJobs(source);
+            } else {
+                System.out.println("ERROR: This program cannot read from the \"" + args[1] + "\", either this program does not have read permission to read that file or file does not exist. Program is going to terminate!");
+                return;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        new BatchProcessor(Runtime.getRuntime().availableProcessors()).run(jobs);
+    }
+
+    /**
+     * Processes the given input/output pairs on a bounded pool of workers and prints the time every file took,
+     * followed by an aggregate summary.
+     *
+     * @param jobs The input and output paths of the files, as two element arrays.
+     * @return The number of files that could not be processed.
+     */
+    public int run(List<String[]> jobs) {
+        final Semaphore permits = new Semaphore(workers); //Virtual threads are not pooled, so the bound is kept here.
+        ExecutorService executor = newExecutor(workers);
+        List<Future<Long>> results = new ArrayList<Future<Long>>();
+        long start = System.nanoTime();
+        for (final String[] job : jobs) {
+            results.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    long fileStart = System.nanoTime();
+                    BookingSystem.processFile(job[0], job[1]);
+                    return System.nanoTime() - fileStart;
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        long totalFileNanos = 0;
+        int failed = 0;
+        for (int i = 0; i < jobs.size(); i++) {
+            String[] job = jobs.get(i);
+            try {
+                long nanos = results.get(i).get();
+                totalFileNanos += nanos;
+                System.out.println(job[0] + " -> " + job[1] + ": " + nanos / 1000000 + " ms");
+            } catch (ExecutionException e) {
+                failed++;
+                System.out.println("ERROR: " + job[0] + " could not be processed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed++;
+                System.out.println("ERROR: " + job[0] + " could not be processed: interrupted");
+            }
+        }
+        executor.shutdown();
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("Processed " + (jobs.size() - failed) + " of " + jobs.size() + " files in " + elapsed / 1000000 +
+                " ms with " + workers + " workers (" + totalFileNanos / 1000000 + " ms spent on the files in total).");
+        return failed;
+    }
+
+    private static ExecutorService newExecutor(int workers) {
+        //Virtual threads are used when the running JDK has them; the sources are kept buildable for Java 8.
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(workers);
+        }
+    }
+
+    private static List<String[]> directoryJobs(File inputDirectory, File outputDirectory) throws IOException {
+        File[] inputs = inputDirectory.listFiles();
+        if (inputs == null) {
+            throw new IOException("Cannot list the files of " + inputDirectory);
+        }
+        Arrays.sort(inputs);
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Cannot create the output directory " + outputDirectory);
+        }
+
+        List<String[]> jobs = new ArrayList<String[]>();
+        for (File input : inputs) {
+            if (input.isFile()) {
+                jobs.add(new String[]{input.getPath(), new File(outputDirectory, input.getName()).getPath()});
+            }
+        }
+        return jobs;
+    }
+
+    private static List<String[]> manifestJobs(File manifest) throws IOException {
+        //Relative paths in the manifest are resolved against the directory of the manifest.
+        File base = manifest.getAbsoluteFile().getParentFile();
+        List<String[]> jobs = new ArrayList<String[]>();
+        BufferedReader reader = Files.newBufferedReader(manifest.toPath(), StandardCharsets.UTF_8);
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] pair = line.split("\t");
+                if (pair.length != 2) {
+                    throw new IOException("Erroneous manifest line, an input and an output path are expected: " + line);
+                }
+                jobs.add(new String[]{resolve(base, pair[0]), resolve(base, pair[1])});
+            }
+        } finally {
+            reader.close();
+        }
+        return jobs;
+    }
+
+    private static String resolve(File base, String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file.getPath() : new File(base, path).getPath();
+    }
+}
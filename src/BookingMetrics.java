@@ -0,0 +1,188 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class BookingMetrics implements BookingMetricsMXBean {
+    public static final String OBJECT_NAME = "BookingSystem:type=BookingMetrics";
+
+    private static volatile BookingMetrics enabled; //The metrics of the process, null while they are disabled.
+
+    private static final Command[] COMMANDS = Command.values();
+    private static final ErrorKind[] ERROR_KINDS = ErrorKind.values();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[COMMANDS.length]; //Indexed by the ordinal of the command.
+    private final AtomicLong unknownCommands = new AtomicLong();
+    private final AtomicLongArray errors = new AtomicLongArray(ERROR_KINDS.length);
+
+    /**
+     * Constructs an empty BookingMetrics object that is not registered anywhere.
+     */
+    public BookingMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Enables the metrics of the process and registers them with the platform MBean server. Every
+     * VoyageManagement created afterwards records its commands into them.
+     *
+     * @return The metrics of the process.
+     */
+    public static synchronized BookingMetrics enable() {
+        if (enabled == null) {
+            BookingMetrics metrics = new BookingMetrics();
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(metrics, name);
+            } catch (JMException e) { //The metrics still work, only without JMX.
+                System.out.println("WARNING: The metrics could not be registered with JMX: " + e.getMessage());
+            }
+            enabled = metrics;
+        }
+        return enabled;
+    }
+
+    /**
+     * Returns the metrics of the process.
+     *
+     * @return The metrics, or null if they are disabled.
+     */
+    public static BookingMetrics current() {
+        return enabled;
+    }
+
+    /**
+     * Records a command that has been executed.
+     *
+     * @param command The command, or null if the command was unknown.
+     * @param nanos   The time the command took, in nanoseconds.
+     * @param error   The kind of the first error the command reported, or null if it succeeded.
+     */
+    public void record(Command command, long nanos, ErrorKind error) {
+        if (command == null) {
+            unknownCommands.incrementAndGet();
+        } else {
+            latencies[command.ordinal()].record(nanos);
+        }
+        if (error != null) {
+            errors.incrementAndGet(error.ordinal());
+        }
+    }
+
+    /**
+     * Returns the latency histogram of a command.
+     *
+     * @param command The command.
+     * @return The histogram of the time the command took.
+     */
+    public LatencyHistogram getLatencies(Command command) {
+        return latencies[command.ordinal()];
+    }
+
+    public long getErrorCount(ErrorKind kind) {
+        return errors.get(kind.ordinal());
+    }
+
+    @Override
+    public Map<String, Long> getCommandCounts() {
+        Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        for (Command command : COMMANDS) {
+            counts.put(command.name(), latencies[command.ordinal()].getCount());
+        }
+        counts.put("UNKNOWN", unknownCommands.get());
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        for (ErrorKind kind : ERROR_KINDS) {
+            counts.put(kind.name(), errors.get(kind.ordinal()));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getMedianLatencyNanos() {
+        return percentiles(50);
+    }
+
+    @Override
+    public Map<String, Long> getP99LatencyNanos() {
+        return percentiles(99);
+    }
+
+    @Override
+    public Map<String, Long> getMaxLatencyNanos() {
+        Map<String, Long> values = new LinkedHashMap<String, Long>();
+        for (Command command : COMMANDS) {
+            values.put(command.name(), latencies[command.ordinal()].getMaxNanos());
+        }
+        return values;
+    }
+
+    @Override
+    public long getLatencyAtPercentileNanos(String command, double percentile) {
+        return latencies[Command.valueOf(command).ordinal()].getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+        unknownCommands.set(0);
+        for (int i = 0; i < errors.length(); i++) {
+            errors.set(i, 0);
+        }
+    }
+
+    /**
+     * Prints a table of the commands with their counts and latencies, followed by the errors by kind.
+     *
+     * @param out The stream the summary is printed to.
+     */
+    public void printSummary(PrintStream out) {
+        out.println("Metrics:");
+        out.println(String.format(Locale.ROOT, "%-16s %10s %10s %10s %10s %10s %10s",
+                "command", "count", "mean us", "p50 us", "p99 us", "p99.9 us", "max us"));
+        for (Command command : COMMANDS) {
+            LatencyHistogram histogram = latencies[command.ordinal()];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            out.println(String.format(Locale.ROOT, "%-16s %10d %10.2f %10.2f %10.2f %10.2f %10.2f",
+                    command.name(), histogram.getCount(), histogram.getMeanNanos() / 1e3,
+                    histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(99) / 1e3,
+                    histogram.getValueAtPercentile(99.9) / 1e3, histogram.getMaxNanos() / 1e3));
+        }
+        if (unknownCommands.get() > 0) {
+            out.println(String.format(Locale.ROOT, "%-16s %10d", "UNKNOWN", unknownCommands.get()));
+        }
+        for (ErrorKind kind : ERROR_KINDS) {
+            if (errors.get(kind.ordinal()) > 0) {
+                out.println("Errors " + kind.name() + ": " + errors.get(kind.ordinal()));
+            }
+        }
+    }
+
+    private Map<String, Long> percentiles(double percentile) {
+        Map<String, Long> values = new LinkedHashMap<String, Long>();
+        for (Command command : COMMANDS) {
+            values.put(command.name(), latencies[command.ordinal()].getValueAtPercentile(percentile));
+        }
+        return values;
+    }
+}
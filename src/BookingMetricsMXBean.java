@@ -0,0 +1,17 @@
+import java.util.Map;
+
+public interface BookingMetricsMXBean {
+    Map<String, Long> getCommandCounts();
+
+    Map<String, Long> getErrorCounts();
+
+    Map<String, Long> getMedianLatencyNanos();
+
+    Map<String, Long> getP99LatencyNanos();
+
+    Map<String, Long> getMaxLatencyNanos();
+
+    long getLatencyAtPercentileNanos(String command, double percentile);
+
+    void reset();
+}
@@ -0,0 +1,231 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class BookingServer {
+    private static final int BACKLOG = 1024;
+
+    private final SellBatcher batcher; //Bursts of sales and refunds on a popular voyage are executed as batches.
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * An HTTP endpoint that runs one command, taking the fields of the command from the request parameters.
+     */
+    private static final class Endpoint {
+        final Command command;
+        final boolean isChange; //Commands that change the voyages only accept POST requests.
+        final String[] parameters; //In the order of the fields of the command; the ones after a missing one are ignored.
+
+        Endpoint(Command command, boolean isChange, String... parameters) {
+            this.command = command;
+            this.isChange = isChange;
+            this.parameters = parameters;
+        }
+    }
+
+    private static final Map<String, Endpoint> ENDPOINTS = new HashMap<String, Endpoint>();
+
+    static {
+        ENDPOINTS.put("/init", new Endpoint(Command.INIT_VOYAGE, true,
+                "type", "id", "from", "to", "rows", "price", "refundCut", "premiumFee"));
+        ENDPOINTS.put("/sell", new Endpoint(Command.SELL_TICKET, true, "id", "seats"));
+        ENDPOINTS.put("/refund", new Endpoint(Command.REFUND_TICKET, true, "id", "seats"));
+        ENDPOINTS.put("/cancel", new Endpoint(Command.CANCEL_VOYAGE, true, "id"));
+        ENDPOINTS.put("/print", new Endpoint(Command.PRINT_VOYAGE, false, "id"));
+        ENDPOINTS.put("/report", new Endpoint(Command.Z_REPORT, false));
+        ENDPOINTS.put("/find", new Endpoint(Command.FIND_SEATS, false, "id", "count", "kind"));
+        ENDPOINTS.put("/search", new Endpoint(Command.SEARCH_VOYAGES, false, "from", "to"));
+    }
+
+    /**
+     * Constructs a BookingServer that serves the voyages of the given engine.
+     *
+     * @param engine The engine the commands of the requests are executed on.
+     */
+    public BookingServer(ConcurrentBookingEngine engine) {
+        this.batcher = new SellBatcher(engine);
+    }
+
+    /**
+     * Runs the server mode: "--serve port" serves a new, empty fleet on the given port until the process is stopped.
+     *
+     * @param args The command line arguments, starting with "--serve".
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("ERROR: The server mode works exactly with one argument, the port to listen on." +
+                    " Sample usage can be as follows: \"java BookingSystem --serve 8080\". Program is going to terminate!");
+            return;
+        }
+        int port;
+        try {
+            port = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            port = -1;
+        }
+        if (port < 0 || port > 65535) {
+            System.out.println("ERROR: " + args[1] + " is not a valid port number! Program is going to terminate!");
+            return;
+        }
+
+        final BookingServer server = new BookingServer(new ConcurrentBookingEngine());
+        try {
+            int boundPort = server.start(port);
+            System.out.println("Serving voyages on http://localhost:" + boundPort + "/");
+        } catch (IOException e) {
+            System.out.println("ERROR: The server cannot listen on port " + port + ": " + e.getMessage() + " Program is going to terminate!");
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                server.stop();
+            }
+        }));
+    }
+
+    /**
+     * Starts listening on the given port. Every request is handled on its own virtual thread when the JDK has
+     * them, or on a pool of threads otherwise.
+     *
+     * @param port The port, or 0 for any free port.
+     * @return The port the server listens on.
+     * @throws IOException If the server cannot listen on the port.
+     */
+    public synchronized int start(int port) throws IOException {
+        //Without TCP_NODELAY a response written as headers and body waits for the delayed ACK of the client, which
+        // adds about 40 ms to every request. The JDK server reads this property once, when its first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serve(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        executor = newExecutor();
+        server.setExecutor(executor);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, letting the requests being handled finish for up to a second.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        Endpoint endpoint = ENDPOINTS.get(exchange.getRequestURI().getPath());
+        if (endpoint == null) {
+            respond(exchange, 404, "ERROR: There is no endpoint namely " + exchange.getRequestURI().getPath() + "!\n");
+            return;
+        }
+        String method = exchange.getRequestMethod();
+        if (!method.equals("POST") && (endpoint.isChange || !method.equals("GET"))) {
+            exchange.getResponseHeaders().set("Allow", endpoint.isChange ? "POST" : "GET, POST");
+            respond(exchange, 405, "ERROR: " + method + " is not allowed for " + exchange.getRequestURI().getPath() + "!\n");
+            return;
+        }
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        try {
+            parseParameters(exchange.getRequestURI().getRawQuery(), parameters);
+            if (method.equals("POST")) { //A form body may carry the parameters as well.
+                parseParameters(readBody(exchange.getRequestBody()), parameters);
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, "ERROR: The parameters of the request cannot be decoded!\n");
+            return;
+        }
+
+        List<String> fields = new ArrayList<String>();
+        fields.add(endpoint.command.name());
+        for (String name : endpoint.parameters) {
+            String value = parameters.get(name);
+            if (value == null) {
+                break;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) < ' ') { //A tab or a line break would change the fields of the command.
+                    respond(exchange, 400, "ERROR: The parameter " + name + " must not contain control characters!\n");
+                    return;
+                }
+            }
+            fields.add(value);
+        }
+
+        String output = batcher.execute(fields.toArray(new String[0])); //The other commands go straight to the engine.
+        respond(exchange, output.startsWith("ERROR: ") ? 400 : 200, output);
+    }
+
+    private static void parseParameters(String query, Map<String, String> parameters) {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+        try {
+            for (String pair : query.split("&")) {
+                int separator = pair.indexOf('=');
+                String name = separator < 0 ? pair : pair.substring(0, separator);
+                String value = separator < 0 ? "" : pair.substring(separator + 1);
+                parameters.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            }
+        } catch (UnsupportedEncodingException e) { //UTF-8 is always supported.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String readBody(InputStream body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    private static ExecutorService newExecutor() {
+        //Virtual threads are used when the running JDK has them; the sources are kept buildable for Java 8.
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        }
+    }
+}
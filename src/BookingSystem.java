@@ -1,15 +1,79 @@
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 
 public class BookingSystem {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchProcessor.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            BookingServer.main(args);
+            return;
+        }
+        int numberOfShards = 1;
+        String journalFileName = null;
+        String loadSnapshotFileName = null;
+        String saveSnapshotFileName = null;
+        String seatStoreFileName = null;
+        SeatStore seatStore = SeatStore.HEAP;
+        BookingMetrics metrics = null;
+        int options = 0; //The number of arguments taken by the options before the input and output paths.
+        while (args.length - options > 2 && args[options].startsWith("--")) {
+            if (args[options].equals("--metrics")) { //"--metrics" records every command and prints a summary at the end; it takes no value.
+                metrics = BookingMetrics.enable();
+                options++;
+                continue;
+            }
+            if (args[options].equals("--off-heap")) { //"--off-heap" keeps the seats of the voyages in direct buffers; it takes no value.
+                seatStore = new OffHeapSeatStore();
+                options++;
+                continue;
+            }
+            if (args[options].equals("--shards")) { //"--shards n" splits the voyages among n worker threads.
+                try {
+                    numberOfShards = Integer.parseInt(args[options + 1]);
+                } catch (NumberFormatException e) {
+                    numberOfShards = 0;
+                }
+                if (numberOfShards < 1) {
+                    System.out.println("ERROR: " + args[options + 1] + " is not a positive integer, number of shards must be a positive integer! Program is going to terminate!");
+                    return;
+                }
+            } else if (args[options].equals("--journal")) { //"--journal path" restores the voyages of the journal and records every change in it.
+                journalFileName = args[options + 1];
+            } else if (args[options].equals("--load-snapshot")) { //"--load-snapshot path" starts from the voyages of a snapshot.
+                loadSnapshotFileName = args[options + 1];
+            } else if (args[options].equals("--save-snapshot")) { //"--save-snapshot path" saves the voyages into a snapshot at the end.
+                saveSnapshotFileName = args[options + 1];
+            } else if (args[options].equals("--seat-store")) { //"--seat-store path" keeps the voyages in a seat store, starting from the ones it holds.
+                seatStoreFileName = args[options + 1];
+            } else {
+                System.out.println("ERROR: There is no option namely " + args[options] + "! Program is going to terminate!");
+                return;
+            }
+            options += 2;
+        }
+        boolean isPersistent = journalFileName != null || loadSnapshotFileName != null || saveSnapshotFileName != null
+                || seatStoreFileName != null;
+        if (isPersistent && numberOfShards > 1) {
+            System.out.println("ERROR: A journal, a snapshot or a seat store cannot be used in the sharded mode. Program is going to terminate!");
+            return;
+        }
+        if (journalFileName != null && loadSnapshotFileName != null) { //Both would restore the same voyages.
+            System.out.println("ERROR: A snapshot cannot be loaded together with a journal. Program is going to terminate!");
+            return;
+        }
+        if (seatStoreFileName != null && (journalFileName != null || loadSnapshotFileName != null)) {
+            System.out.println("ERROR: A seat store cannot be used together with a journal or a loaded snapshot. Program is going to terminate!");
+            return;
+        }
+        args = Arrays.copyOfRange(args, options, args.length);
         if (args.length != 2) {
             System.out.println("ERROR: This program works exactly with two command line arguments," +
                     " the first one is the path to the input file whereas the second one is the path to the output file." +
@@ -36,33 +100,154 @@ public class BookingSystem {
         }
 
         try {
-            FileWriter writer = new FileWriter(outputFileName);
-            String[] inputContent = FileInput.readFile(inputFileName, false, false);
-            FileOutput.writeToFile(outputFileName, "", false, false);
-
-            Operations(inputContent, writer);
-            writer.close();
-            removeTrailingNewLine(outputFileName);
-
+            if (isPersistent) {
+                processFile(inputFileName, outputFileName, journalFileName, loadSnapshotFileName, saveSnapshotFileName,
+                        seatStoreFileName, seatStore);
+            } else {
+                processFile(inputFileName, outputFileName, numberOfShards, seatStore);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
+        if (metrics != null) {
+            metrics.printSummary(System.out);
+        }
     }
 
     /**
-     * Removes an unnecessary newline character at the end of the specified file.
+     * Runs the commands of an input file through their own Operations pipeline and writes the output file.
      *
-     * @param filePath The path of the file from which the newline character will be removed.
-     * @throws IOException If an I/O error occurs while performing file operations.
+     * @param inputFileName  Path to the input file.
+     * @param outputFileName Path to the output file.
+     * @throws IOException If an I/O error occurs while reading the input or writing to the output file.
      */
-    public static void removeTrailingNewLine(String filePath) throws IOException {
-        RandomAccessFile file = new RandomAccessFile(filePath, "rw");
-        long length = file.length();
-        if (length == 0) {
-            return;
+    public static void processFile(String inputFileName, String outputFileName) throws IOException {
+        processFile(inputFileName, outputFileName, 1);
+    }
+
+    /**
+     * Runs the commands of an input file and writes the output file, splitting the voyages among the given number
+     * of shard worker threads. The output is the same for any number of shards.
+     *
+     * @param inputFileName  Path to the input file.
+     * @param outputFileName Path to the output file.
+     * @param numberOfShards The number of shard worker threads; with one, the commands run on the calling thread.
+     * @throws IOException If an I/O error occurs while reading the input or writing to the output file.
+     */
+    public static void processFile(String inputFileName, String outputFileName, int numberOfShards) throws IOException {
+        processFile(inputFileName, outputFileName, numberOfShards, SeatStore.HEAP);
+    }
+
+    /**
+     * Runs the commands of an input file and writes the output file, splitting the voyages among the given number
+     * of shard worker threads and keeping their seats in the given store.
+     *
+     * @param inputFileName  Path to the input file.
+     * @param outputFileName Path to the output file.
+     * @param numberOfShards The number of shard worker threads; with one, the commands run on the calling thread.
+     * @param seatStore      The store the seats of the voyages are kept in.
+     * @throws IOException If an I/O error occurs while reading the input or writing to the output file.
+     */
+    public static void processFile(String inputFileName, String outputFileName, int numberOfShards, SeatStore seatStore)
+            throws IOException {
+        ReportSink writer = ReportSink.open(outputFileName); //The sink leaves out the newline after the last line itself.
+        try {
+            CommandReader reader = CommandReader.open(inputFileName); //The input is streamed, so only one command is held in memory at a time.
+            try {
+                if (numberOfShards > 1) {
+                    new ShardedOperations(numberOfShards, seatStore).run(reader, writer);
+                } else {
+                    Operations(reader, writer, new VoyageRegistry(seatStore), null);
+                }
+            } finally {
+                reader.close();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Runs the commands of an input file and writes the output file, starting from the voyages of a snapshot or
+     * a journal. With a journal, the voyages recorded in it by earlier runs are restored first and every change is
+     * recorded in it; with a snapshot to save, the voyages are saved into it at the end.
+     *
+     * @param inputFileName        Path to the input file.
+     * @param outputFileName       Path to the output file.
+     * @param journalFileName      Path to the journal file, which is created if it does not exist, or null.
+     * @param loadSnapshotFileName Path to the snapshot the voyages are loaded from, or null.
+     * @param saveSnapshotFileName Path to the snapshot the voyages are saved into, or null.
+     * @throws IOException If an I/O error occurs while reading or writing any of the files.
+     */
+    public static void processFile(String inputFileName, String outputFileName, String journalFileName,
+                                   String loadSnapshotFileName, String saveSnapshotFileName) throws IOException {
+        processFile(inputFileName, outputFileName, journalFileName, loadSnapshotFileName, saveSnapshotFileName, null,
+                SeatStore.HEAP);
+    }
+
+    /**
+     * Runs the commands of an input file and writes the output file, starting from the voyages of a snapshot, a
+     * journal or a seat store. With a journal, the voyages recorded in it by earlier runs are restored first and
+     * every change is recorded in it; if the last run on the journal crashed and this one has the same input, unchanged,
+     * and the same output file, the input is continued after the last line the journal committed and the output file
+     * is continued from the output written up to it; a run on other files starts at the first line. A seat
+     * store instead holds the current seats and revenue of every voyage, which are read and written in place in the
+     * file, so the voyages of earlier runs are served without being restored first. With a snapshot to save, the
+     * voyages are saved into it at the end. A seat store cannot be used together with a journal or a snapshot to load;
+     * it keeps the seats itself, in place of the given store of seats.
+     *
+     * @param inputFileName        Path to the input file.
+     * @param outputFileName       Path to the output file.
+     * @param journalFileName      Path to the journal file, which is created if it does not exist, or null.
+     * @param loadSnapshotFileName Path to the snapshot the voyages are loaded from, or null.
+     * @param saveSnapshotFileName Path to the snapshot the voyages are saved into, or null.
+     * @param seatStoreFileName    Path to the seat store file, which is created if it does not exist, or null.
+     * @param seatStore            The store the seats of the voyages are kept in when there is no seat store file.
+     * @throws IOException If an I/O error occurs while reading or writing any of the files.
+     */
+    public static void processFile(String inputFileName, String outputFileName, String journalFileName,
+                                   String loadSnapshotFileName, String saveSnapshotFileName,
+                                   String seatStoreFileName, SeatStore seatStore) throws IOException {
+        MappedSeatStore mappedSeatStore = seatStoreFileName != null
+                ? MappedSeatStore.open(seatStoreFileName, MappedSeatStore.DEFAULT_GROUP_SIZE) : null;
+        VoyageRegistry voyages = mappedSeatStore != null
+                ? new VoyageRegistry(mappedSeatStore, mappedSeatStore) : new VoyageRegistry(seatStore);
+        if (loadSnapshotFileName != null) {
+            VoyageSnapshot.load(loadSnapshotFileName, voyages);
+        }
+        VoyageJournal journal = journalFileName != null
+                ? VoyageJournal.open(journalFileName, voyages, VoyageJournal.DEFAULT_GROUP_SIZE) : null;
+        try {
+            if (journal != null) {
+                journal.startRun(inputFileName, outputFileName);
+            }
+            ReportSink writer = journal != null && journal.getResumedLines() > 0 //A crashed run is continued where it was last checkpointed.
+                    ? ReportSink.resume(outputFileName, journal.getResumedOutputLength(), journal.hasResumedPendingNewLine())
+                    : ReportSink.open(outputFileName);
+            try {
+                CommandReader reader = CommandReader.open(inputFileName);
+                try {
+                    Operations(reader, writer, voyages, journal != null ? journal : mappedSeatStore);
+                    if (journal != null) {
+                        writer.sync(); //The whole output is on the disk before the journal marks the run as completed.
+                    }
+                } finally {
+                    reader.close();
+                }
+            } finally {
+                writer.close();
+            }
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+            if (mappedSeatStore != null) {
+                mappedSeatStore.close();
+            }
+        }
+        if (saveSnapshotFileName != null) {
+            VoyageSnapshot.save(voyages, saveSnapshotFileName);
         }
-        file.setLength(length - 1);
-        file.close();
     }
 
     /**
@@ -73,41 +258,70 @@ public class BookingSystem {
      * @throws IOException If an I/O error occurs while writing to the output file.
      */
     public static void Operations(String[] inputContent, FileWriter writer) throws IOException {
+        ReportSink sink = new ReportSink(writer, false);
+        Operations(new CommandReader(inputContent), sink);
+        sink.flush();
+    }
 
-        List<Voyage> voyages = new ArrayList<>();
-        boolean hasZReport = false;
+    /**
+     * Performs operations on the commands pulled one at a time from the reader and writes the results to a ReportSink.
+     *
+     * @param reader The CommandReader the input commands are read from.
+     * @param writer The ReportSink the output is written into.
+     * @throws IOException If an I/O error occurs while reading the input or writing to the output file.
+     */
+    public static void Operations(CommandReader reader, ReportSink writer) throws IOException {
+        Operations(reader, writer, new VoyageRegistry(), null);
+    }
 
-        for (int i = 0; i < inputContent.length; i++) {
-            String inputLine = inputContent[i].trim();
-            if (inputLine.isEmpty()) {
-                continue; // Skip the empty line.
-            }
-            String[] line = inputLine.split("\t");
-            if (line.length == 0) {
-                continue; // Skip the invalid line.
-            }
+    /**
+     * Performs operations on the commands pulled one at a time from the reader, starting from the given voyages,
+     * and writes the results to a ReportSink. If the listener is a VoyageJournal, the lines an interrupted run
+     * already consumed are skipped and every line consumed is counted in the journal.
+     *
+     * @param reader   The CommandReader the input commands are read from.
+     * @param writer   The ReportSink the output is written into.
+     * @param voyages  The registry of voyages the commands are executed on.
+     * @param listener The listener told about every change, or null.
+     * @throws IOException If an I/O error occurs while reading the input or writing to the output file.
+     */
+    public static void Operations(CommandReader reader, ReportSink writer, VoyageRegistry voyages, IVoyageListener listener) throws IOException {
+        VoyageManagement voyageManagement = new VoyageManagement(voyages); //One dispatcher serves every command.
+        voyageManagement.setListener(listener);
+        boolean hasZReport = false; //Whether the last command read so far is a Z report.
+        VoyageJournal journal = listener instanceof VoyageJournal ? (VoyageJournal) listener : null;
+        long linesToSkip = journal != null ? journal.getResumedLines() : 0;
 
-            String stringLine = null;
-            for (int j = 0; j < line.length; j++) {
-                stringLine += line[j];
+        CommandLine line = new CommandLine(); //Every line is split in place, in the buffer of the reader.
+        while (reader.next(line)) {
+            if (linesToSkip > 0) { //The changes of these lines are restored from the journal and their output is kept.
+                linesToSkip--;
+                if (line.isEmpty() == false) {
+                    hasZReport = line.command() == Command.Z_REPORT;
+                }
+                continue;
+            }
+            if (line.isEmpty()) {
+                if (journal != null) {
+                    journal.lineConsumed(writer);
+                }
+                continue; // Skip the empty line.
             }
 
-            writer.write("COMMAND: " + inputLine + "\n");
-            VoyageManagement voyageManagement = new VoyageManagement(line, voyages);
-            voyageManagement.voyageManagementOperation(writer);
+            writer.write("COMMAND: ");
+            line.writeLine(writer);
+            writer.write('\n');
+            voyageManagement.voyageManagementOperation(line, writer);
 
-            if (!line[0].equals("Z_REPORT")) {
-                hasZReport = false;
-            } else {
-                hasZReport = true;
+            hasZReport = line.command() == Command.Z_REPORT;
+            if (journal != null) {
+                journal.lineConsumed(writer);
             }
         }
 
         if (!hasZReport) {
-            String[] zReportLine = {"Z_REPORT"}; //If the last command in the input file is not Z_REPORT, it prints the last Z_REPORT command.
-
-            VoyageManagement zReportManagement = new VoyageManagement(zReportLine, voyages);
-            zReportManagement.voyageManagementOperation(writer);
+            CommandLine zReportLine = CommandLine.of("Z_REPORT"); //If the last command in the input file is not Z_REPORT, it prints the last Z_REPORT command.
+            voyageManagement.voyageManagementOperation(zReportLine, writer);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+public enum Command {
+    INIT_VOYAGE,
+    Z_REPORT,
+    CANCEL_VOYAGE,
+    PRINT_VOYAGE,
+    SELL_TICKET,
+    REFUND_TICKET,
+    FIND_SEATS,
+    SEARCH_VOYAGES;
+
+    private static final Command[] COMMANDS = values(); //values() copies the array on every call.
+
+    /**
+     * Returns the command with the given name.
+     *
+     * @param name The first field of an input line.
+     * @return The command with that name, or null if there is no such command.
+     */
+    public static Command of(String name) {
+        switch (name) { //A string switch compares the hash code first, so an unknown name costs one lookup instead of an equals chain.
+            case "INIT_VOYAGE":
+                return INIT_VOYAGE;
+            case "Z_REPORT":
+                return Z_REPORT;
+            case "CANCEL_VOYAGE":
+                return CANCEL_VOYAGE;
+            case "PRINT_VOYAGE":
+                return PRINT_VOYAGE;
+            case "SELL_TICKET":
+                return SELL_TICKET;
+            case "REFUND_TICKET":
+                return REFUND_TICKET;
+            case "FIND_SEATS":
+                return FIND_SEATS;
+            case "SEARCH_VOYAGES":
+                return SEARCH_VOYAGES;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the command whose name is the given range of characters.
+     *
+     * @param chars The characters.
+     * @param start The index of the first character of the name.
+     * @param end   The index after the last character of the name.
+     * @return The command with that name, or null if there is no such command.
+     */
+    public static Command of(char[] chars, int start, int end) {
+        for (Command command : COMMANDS) {
+            String name = command.name();
+            if (name.length() == end - start && matches(name, chars, start)) {
+                return command;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(String name, char[] chars, int start) {
+        for (int i = 0; i < name.length(); i++) {
+            if (chars[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,276 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+public class CommandLine {
+    private static final int INITIAL_FIELDS = 16; //Grown when a line has more fields.
+
+    private char[] chars; //Either the buffer of a CommandReader or a buffer of its own; it is never changed here.
+    private char[] ownChars = new char[128];
+    private int start; //The line without the leading and trailing whitespace, as String.trim() leaves it.
+    private int end;
+    private int[] fieldStarts = new int[INITIAL_FIELDS];
+    private int[] fieldEnds = new int[INITIAL_FIELDS];
+    private int count;
+    private Command command;
+    private boolean isCommandKnown;
+
+    /**
+     * Creates a CommandLine holding the given fields, as if they were read from a tab separated line.
+     *
+     * @param fields The fields of the line.
+     * @return The command line.
+     */
+    public static CommandLine of(String... fields) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            line.append(fields[i]);
+        }
+        CommandLine commandLine = new CommandLine();
+        commandLine.set(line.toString());
+        return commandLine;
+    }
+
+    /**
+     * Makes the line refer to a range of characters and splits it into its fields. The characters are not copied,
+     * so they must not change while the line is in use. The range is trimmed as String.trim() trims a line and
+     * split at every tab as String.split("\t") splits it.
+     *
+     * @param source The characters.
+     * @param from   The index of the first character of the line.
+     * @param to     The index after the last character of the line.
+     */
+    public void set(char[] source, int from, int to) {
+        while (from < to && source[from] <= ' ') {
+            from++;
+        }
+        while (to > from && source[to - 1] <= ' ') {
+            to--;
+        }
+        chars = source;
+        start = from;
+        end = to;
+        isCommandKnown = false;
+
+        //A trimmed line neither starts nor ends with a tab, so every field is kept, the empty ones in between too.
+        count = 0;
+        if (from == to) {
+            return;
+        }
+        int fieldStart = from;
+        for (int i = from; i < to; i++) {
+            if (source[i] == '\t') {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        addField(fieldStart, to);
+    }
+
+    /**
+     * Copies the given line into a buffer of this line and splits it into its fields.
+     *
+     * @param line The line.
+     */
+    public void set(String line) {
+        if (ownChars.length < line.length()) {
+            ownChars = new char[Math.max(line.length(), ownChars.length * 2)];
+        }
+        line.getChars(0, line.length(), ownChars, 0);
+        set(ownChars, 0, line.length());
+    }
+
+    /**
+     * Copies another line into a buffer of this line, so that it stays valid after the other one changes.
+     *
+     * @param other The line to be copied.
+     */
+    public void copyFrom(CommandLine other) {
+        int length = other.end - other.start;
+        if (ownChars.length < length) {
+            ownChars = new char[Math.max(length, ownChars.length * 2)];
+        }
+        System.arraycopy(other.chars, other.start, ownChars, 0, length);
+        set(ownChars, 0, length);
+    }
+
+    /**
+     * Checks whether the line is empty once trimmed.
+     *
+     * @return True if the line has no fields, false otherwise.
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns the number of fields, as the length of the array String.split("\t") returns.
+     *
+     * @return The number of fields.
+     */
+    public int length() {
+        return count;
+    }
+
+    /**
+     * Returns the command named by the first field.
+     *
+     * @return The command, or null if the first field is not the name of a command.
+     */
+    public Command command() {
+        if (!isCommandKnown) {
+            command = count == 0 ? null : Command.of(chars, fieldStarts[0], fieldEnds[0]);
+            isCommandKnown = true;
+        }
+        return command;
+    }
+
+    /**
+     * Returns the text of a field. This creates a string, so it is meant for the fields that are kept or quoted.
+     *
+     * @param field The index of the field.
+     * @return The text of the field.
+     */
+    public String get(int field) {
+        checkField(field);
+        return new String(chars, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    /**
+     * Checks whether a field is equal to the given text.
+     *
+     * @param field The index of the field.
+     * @param text  The text to compare with.
+     * @return True if the field has exactly the given text, false otherwise.
+     */
+    public boolean fieldEquals(int field, String text) {
+        checkField(field);
+        int fieldStart = fieldStarts[field];
+        if (fieldEnds[field] - fieldStart != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (chars[fieldStart + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a field in place with the rules of Integer.parseInt.
+     *
+     * @param field The index of the field.
+     * @return The value, or NumberParser.INVALID if the field is not an int.
+     */
+    public long parseInt(int field) {
+        return NumberParser.parseInt(chars, fieldStarts[field], fieldEnds[field]);
+    }
+
+    /**
+     * Parses a field in place with the rules of Double.parseDouble.
+     *
+     * @param field The index of the field.
+     * @return The value.
+     * @throws NumberFormatException If the field is not a number.
+     */
+    public double parseDouble(int field) {
+        return NumberParser.parseDouble(chars, fieldStarts[field], fieldEnds[field]);
+    }
+
+    /**
+     * Returns the index of the first character of a field in chars().
+     *
+     * @param field The index of the field.
+     * @return The index of the first character of the field.
+     */
+    public int fieldStart(int field) {
+        checkField(field);
+        return fieldStarts[field];
+    }
+
+    /**
+     * Returns the index after the last character of a field in chars().
+     *
+     * @param field The index of the field.
+     * @return The index after the last character of the field.
+     */
+    public int fieldEnd(int field) {
+        checkField(field);
+        return fieldEnds[field];
+    }
+
+    /**
+     * Returns the characters the line refers to. They must only be read, and only between the bounds of the fields.
+     *
+     * @return The characters of the line.
+     */
+    public char[] chars() {
+        return chars;
+    }
+
+    /**
+     * Writes the text of a field.
+     *
+     * @param field  The index of the field.
+     * @param writer The ReportSink the field is written into.
+     * @throws IOException If an I/O error occurs while writing to the output file.
+     */
+    public void write(int field, ReportSink writer) throws IOException {
+        writer.write(chars, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    /**
+     * Writes the text of a field with every occurrence of a character replaced by another one.
+     *
+     * @param field       The index of the field.
+     * @param target      The character to be replaced.
+     * @param replacement The character written instead.
+     * @param writer      The ReportSink the field is written into.
+     * @throws IOException If an I/O error occurs while writing to the output file.
+     */
+    public void write(int field, char target, char replacement, ReportSink writer) throws IOException {
+        for (int i = fieldStarts[field]; i < fieldEnds[field]; i++) {
+            char c = chars[i];
+            writer.write(c == target ? replacement : c);
+        }
+    }
+
+    /**
+     * Writes the trimmed line.
+     *
+     * @param writer The ReportSink the line is written into.
+     * @throws IOException If an I/O error occurs while writing to the output file.
+     */
+    public void writeLine(ReportSink writer) throws IOException {
+        writer.write(chars, start, end - start);
+    }
+
+    /**
+     * Returns the trimmed line.
+     *
+     * @return The trimmed line.
+     */
+    @Override
+    public String toString() {
+        return new String(chars, start, end - start);
+    }
+
+    private void checkField(int field) { //A missing field fails as indexing the array of String.split would.
+        if (field >= count) {
+            throw new ArrayIndexOutOfBoundsException(field);
+        }
+    }
+
+    private void addField(int fieldStart, int fieldEnd) {
+        if (count == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, count * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, count * 2);
+        }
+        fieldStarts[count] = fieldStart;
+        fieldEnds[count] = fieldEnd;
+        count++;
+    }
+}
@@ -0,0 +1,129 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class CommandReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader reader;
+    private final String[] lines;
+    private int index;
+    private char[] buffer;
+    private int position; //The first character that has not been handed out as a line yet.
+    private int limit; //The end of the characters read into the buffer.
+    private boolean skipLineFeed; //The last line ended with '\r', so a '\n' right after it belongs to the same terminator.
+    private boolean isEndOfInput;
+
+    /**
+     * Constructs a CommandReader that pulls the command lines one at a time from the given reader.
+     *
+     * @param reader The reader the command lines are read from.
+     */
+    public CommandReader(Reader reader) {
+        this.reader = reader;
+        this.lines = null;
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Constructs a CommandReader over command lines that are already in memory.
+     *
+     * @param lines The command lines.
+     */
+    public CommandReader(String[] lines) {
+        this.reader = null;
+        this.lines = lines;
+    }
+
+    /**
+     * Opens the file at the given path for streaming. Only one buffer of the file is held in memory at a time.
+     *
+     * @param path Path to the file that is going to be read.
+     * @return A CommandReader over the lines of the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static CommandReader open(String path) throws IOException {
+        //The file is decoded as UTF-8, as Files.readAllLines does.
+        return new CommandReader(new InputStreamReader(Files.newInputStream(Paths.get(path)), StandardCharsets.UTF_8.newDecoder()));
+    }
+
+    /**
+     * Reads the next command line into the given CommandLine. Lines end at "\n", "\r" or "\r\n", as with
+     * BufferedReader.readLine(). The line refers to the buffer of the reader without copying it, so it is only
+     * valid until the next call.
+     *
+     * @param line The CommandLine the next line is read into.
+     * @return True if a line was read, false if the end of the input has been reached.
+     * @throws IOException If an I/O error occurs while reading the input.
+     */
+    public boolean next(CommandLine line) throws IOException {
+        if (reader == null) {
+            if (index < lines.length) {
+                line.set(lines[index++]);
+                return true;
+            }
+            return false;
+        }
+
+        int scan = position;
+        while (true) {
+            if (skipLineFeed && position < limit) {
+                skipLineFeed = false;
+                if (buffer[position] == '\n') {
+                    position++;
+                }
+                scan = position;
+            }
+            for (; scan < limit; scan++) {
+                char c = buffer[scan];
+                if (c == '\n' || c == '\r') {
+                    line.set(buffer, position, scan);
+                    position = scan + 1;
+                    skipLineFeed = c == '\r';
+                    return true;
+                }
+            }
+            if (isEndOfInput) {
+                skipLineFeed = false;
+                if (position < limit) { //The last line has no terminator.
+                    line.set(buffer, position, limit);
+                    position = limit;
+                    return true;
+                }
+                return false;
+            }
+            int scanned = scan - position;
+            fill();
+            scan = position + scanned;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    private void fill() throws IOException { //Moves the unfinished line to the front of the buffer and reads more after it.
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) { //A line longer than the buffer.
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position = 0;
+        limit = remaining;
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            isEndOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class ConcurrentBookingEngine {
+    private static final int DEFAULT_STRIPES = 256; //Must be a power of two so that the stripe can be found with a bit mask.
+
+    private final VoyageRegistry voyages;
+    private final ReentrantReadWriteLock registryLock = new ReentrantReadWriteLock(); //Held exclusively while voyages are added, removed or listed.
+    private final ReentrantLock[] stripes;
+    //A VoyageManagement keeps scratch state, so every command borrows one that no other thread is using. They are
+    // pooled rather than kept per thread, as a server may run every request on a new virtual thread.
+    private final ConcurrentLinkedQueue<VoyageManagement> dispatchers = new ConcurrentLinkedQueue<VoyageManagement>();
+
+    /**
+     * Constructs a ConcurrentBookingEngine with an empty registry of voyages.
+     */
+    public ConcurrentBookingEngine() {
+        this(new VoyageRegistry(), DEFAULT_STRIPES);
+    }
+
+    /**
+     * Constructs a ConcurrentBookingEngine that executes commands on the given registry of voyages.
+     * The registry must not be used by anything else while the engine is in use.
+     *
+     * @param voyages The registry of voyages to manage.
+     * @param stripes The number of voyage locks, rounded up to a power of two.
+     */
+    public ConcurrentBookingEngine(VoyageRegistry voyages, int stripes) {
+        this.voyages = voyages;
+        int count = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Executes a command and writes its output into the given sink; it may be called from many threads at once.
+     * INIT_VOYAGE, CANCEL_VOYAGE, Z_REPORT and SEARCH_VOYAGES change or list the whole registry and run alone. The
+     * other commands only hold the lock of their voyage, so commands on different voyages run in parallel while
+     * commands on the same voyage run one after another, each of them as a whole; a SELL_TICKET still sells all of
+     * its seats or none.
+     *
+     * @param line   The command line; it must not be shared between threads either.
+     * @param writer The ReportSink the output is written into; it must not be shared between threads.
+     * @throws IOException If an I/O error occurs while writing the output.
+     */
+    public void execute(CommandLine line, ReportSink writer) throws IOException {
+        VoyageManagement voyageManagement = borrowDispatcher();
+        try {
+            execute(voyageManagement, line, writer);
+        } finally {
+            dispatchers.offer(voyageManagement);
+        }
+    }
+
+    /**
+     * Executes several commands one after another, as if execute were called for each of them in order, but takes
+     * the locks once for a run of commands on the same voyage instead of once per command. Only the commands that
+     * hold the lock of a single voyage may be given here, which excludes INIT_VOYAGE, CANCEL_VOYAGE, Z_REPORT and
+     * SEARCH_VOYAGES. A command that fails does not stop the others: what it throws is recorded at its index.
+     *
+     * @param lines    The command lines.
+     * @param writers  The ReportSinks the outputs are written into, one for each command line.
+     * @param failures Receives the exception each command threw, or null for a command that completed.
+     * @param count    The number of commands.
+     */
+    public void execute(CommandLine[] lines, ReportSink[] writers, Exception[] failures, int count) {
+        for (int i = 0; i < count; i++) {
+            if (isRegistryCommand(lines[i].command())) {
+                throw new IllegalArgumentException(lines[i].command() + " cannot be executed in a batch.");
+            }
+        }
+
+        VoyageManagement voyageManagement = borrowDispatcher();
+        ReentrantReadWriteLock.ReadLock registryReadLock = registryLock.readLock();
+        ReentrantLock heldLock = null;
+        registryReadLock.lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                ReentrantLock voyageLock = stripeOf(lines[i]);
+                if (voyageLock != heldLock) { //The lock is kept as long as the next command needs the same one.
+                    if (heldLock != null) {
+                        heldLock.unlock();
+                        heldLock = null;
+                    }
+                    voyageLock.lock();
+                    heldLock = voyageLock;
+                }
+                try {
+                    voyageManagement.voyageManagementOperation(lines[i], writers[i]);
+                    failures[i] = null;
+                } catch (IOException | RuntimeException e) {
+                    failures[i] = e;
+                }
+            }
+        } finally {
+            if (heldLock != null) {
+                heldLock.unlock();
+            }
+            registryReadLock.unlock();
+            dispatchers.offer(voyageManagement);
+        }
+    }
+
+    private VoyageManagement borrowDispatcher() {
+        VoyageManagement voyageManagement = dispatchers.poll();
+        return voyageManagement == null ? new VoyageManagement(voyages) : voyageManagement;
+    }
+
+    private static boolean isRegistryCommand(Command command) {
+        return command == Command.INIT_VOYAGE || command == Command.CANCEL_VOYAGE || command == Command.Z_REPORT
+                || command == Command.SEARCH_VOYAGES;
+    }
+
+    private void execute(VoyageManagement voyageManagement, CommandLine line, ReportSink writer) throws IOException {
+        Command command = line.command();
+        if (command == null) { //An unknown command only writes an error message.
+            voyageManagement.voyageManagementOperation(line, writer);
+            return;
+        }
+        if (isRegistryCommand(command)) {
+            ReentrantReadWriteLock.WriteLock lock = registryLock.writeLock();
+            lock.lock();
+            try {
+                voyageManagement.voyageManagementOperation(line, writer);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        ReentrantReadWriteLock.ReadLock registryReadLock = registryLock.readLock();
+        ReentrantLock voyageLock = stripeOf(line);
+        registryReadLock.lock();
+        voyageLock.lock();
+        try {
+            voyageManagement.voyageManagementOperation(line, writer);
+        } finally {
+            voyageLock.unlock();
+            registryReadLock.unlock();
+        }
+    }
+
+    /**
+     * Executes a command and returns its output.
+     *
+     * @param line The fields of the command line, the first one being the command name.
+     * @return The output of the command.
+     */
+    public String execute(String[] line) {
+        ReportSink writer = ReportSink.inMemory();
+        try {
+            execute(CommandLine.of(line), writer);
+        } catch (IOException e) { //An in-memory sink does not write to any file.
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Returns the registry of voyages of the engine. It must only be used while no command is being executed.
+     *
+     * @return The registry of voyages.
+     */
+    public VoyageRegistry getVoyages() {
+        return voyages;
+    }
+
+    private ReentrantLock stripeOf(CommandLine line) {
+        //A command whose voyage ID cannot be parsed does not touch any voyage, so any stripe will do for it.
+        long voyageID = line.length() > 1 ? line.parseInt(1) : NumberParser.INVALID;
+        int hash = voyageID == NumberParser.INVALID ? 0 : (int) voyageID * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,10 @@
+public enum ErrorKind {
+    UNKNOWN_COMMAND, //The first field is not the name of a command.
+    USAGE, //The command has the wrong number of fields or an unknown option.
+    INVALID_ARGUMENT, //A field of the command is not a valid number or value.
+    NO_SUCH_VOYAGE,
+    DUPLICATE_VOYAGE,
+    INVALID_SEAT, //A seat number is not a number, out of range or given twice.
+    SEAT_UNAVAILABLE, //A seat is already sold or already empty, or there are not enough free seats.
+    NOT_REFUNDABLE
+}
@@ -0,0 +1,53 @@
+public class HeapSeatMap extends SeatMap {
+    private long[] occupied; //Bit (seatNumber - 1) is set if that seat is sold; null until the first seat is sold.
+    private int occupiedRegularSeats; //Running counts kept up to date by occupy and release.
+    private int occupiedPremiumSeats;
+
+    /**
+     * Constructs a HeapSeatMap in which every seat is empty; its seats are kept in an array once one is sold.
+     *
+     * @param layout       The layout of a row of seats.
+     * @param numberOfRows The number of seat rows.
+     */
+    public HeapSeatMap(SeatLayout layout, int numberOfRows) {
+        super(layout, numberOfRows);
+    }
+
+    @Override
+    public boolean isMaterialized() {
+        return occupied != null;
+    }
+
+    @Override
+    public long getWord(int wordIndex) {
+        return occupied == null ? 0 : occupied[wordIndex];
+    }
+
+    @Override
+    protected void putWord(int wordIndex, long word) {
+        if (occupied == null) {
+            occupied = new long[getNumberOfWords()];
+        }
+        occupied[wordIndex] = word;
+    }
+
+    @Override
+    protected void addOccupied(int regularSeats, int premiumSeats) {
+        occupiedRegularSeats += regularSeats;
+        occupiedPremiumSeats += premiumSeats;
+    }
+
+    @Override
+    public int countOccupiedRegular() {
+        return occupiedRegularSeats;
+    }
+
+    @Override
+    public int countOccupiedPremium() {
+        return occupiedPremiumSeats;
+    }
+
+    @Override
+    public void free() { //The array goes away with the seat map.
+    }
+}
@@ -0,0 +1,11 @@
+import java.io.IOException;
+
+public interface IVoyageListener {
+    void voyageInitialized(Voyage voyage) throws IOException;
+
+    void ticketsSold(Voyage voyage, SeatList seats) throws IOException;
+
+    void ticketsRefunded(Voyage voyage, SeatList seats) throws IOException;
+
+    void voyageCancelled(Voyage voyage) throws IOException;
+}
@@ -1,17 +1,19 @@
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.List;
 
 public interface IVoyageManegement {
-    void initVoyage(List<Voyage> voyages, FileWriter writer) throws IOException;
+    void initVoyage(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException;
 
-    void ZReport(List<Voyage> voyages, FileWriter writer) throws IOException;
+    void ZReport(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException;
 
-    void cancelVoyage(List<Voyage> voyages, FileWriter writer) throws IOException;
+    void cancelVoyage(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException;
 
-    void sellTicket(List<Voyage> voyages, FileWriter writer) throws IOException;
+    void sellTicket(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException;
 
-    void refundTicket(List<Voyage> voyages, FileWriter writer) throws IOException;
+    void refundTicket(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException;
 
-    void printVoyage(List<Voyage> voyages, FileWriter writer) throws IOException;
+    void printVoyage(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException;
+
+    void findSeats(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException;
+
+    void searchVoyages(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException;
 }
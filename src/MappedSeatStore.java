@@ -0,0 +1,763 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+public class MappedSeatStore implements SeatStore, VoyageSource, IVoyageListener, Closeable {
+    public static final int DEFAULT_GROUP_SIZE = 256;
+
+    private static final int MAGIC = 0x56535452; //"VSTR"
+    private static final int FORMAT_VERSION = 3;
+    private static final int HEADER_SIZE = 64; //The file starts with two copies of the header, which commits write in turns.
+    private static final int CITIES_OFFSET = 2 * HEADER_SIZE;
+    private static final int RECORD_HEADER_SIZE = 64; //The fixed fields of a voyage, followed by its occupancy words.
+    private static final int DEFAULT_WORDS = 4; //256 seats, which holds 64 standard rows; larger voyages keep their words in an extent.
+    private static final int DEFAULT_CITIES = 1024;
+    private static final int INITIAL_RECORDS = 1024; //Must be a power of two, as the records form an open addressing table.
+    private static final int INITIAL_EXTENTS = 64 << 10;
+    private static final byte EMPTY = 0; //Never used, so it ends every probe sequence that reaches it.
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 2; //Left by a cancelled voyage; probed over, and reused by the next new voyage that reaches it.
+
+    //The fields of a record half.
+    private static final int VOYAGE_ID = 0;
+    private static final int STATE = 4;
+    private static final int KIND = 5;
+    private static final int ROWS = 8;
+    private static final int REFUND_CUT = 12;
+    private static final int PRICE = 16;
+    private static final int PREMIUM_FEE = 24;
+    private static final int FROM_CITY = 28;
+    private static final int TO_CITY = 32;
+    private static final int OCCUPIED_REGULAR = 36;
+    private static final int OCCUPIED_PREMIUM = 40;
+    private static final int NUMBER_OF_WORDS = 44;
+    private static final int REVENUE = 48;
+    private static final int EXTENT = 56; //The offset of the words of a voyage that has more of them than a record holds.
+
+    private final Path path;
+    private final int groupSize;
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private MappedByteBuffer mapping;
+    private ByteBuffer view; //Moves over the mapping for bulk copies, so that the position of the mapping stays put.
+    private int generation; //Counts the migrations, after which the seat maps look their records up again.
+
+    //The geometry of the file, which only changes when the file is migrated, apart from the extents growing.
+    private int wordsPerRecord;
+    private int cityCapacity; //The cities are an int per city, the offset of the extent that holds its name.
+    private int recordCapacity;
+    private int extentsCapacity;
+    private int halfSize; //Every record holds two halves; the changes of an epoch go into the one that is not committed.
+    private int bitmapOffset; //Two bitmaps follow the cities, each with a bit per record telling which of its halves is current.
+    private int bitmapSize;
+    private int recordsOffset;
+    private int extentsOffset; //The extents follow the records; they hold the city names and the words of the larger voyages.
+
+    //The bitmap of the committed epoch is never written; the other one is the working bitmap, with the records
+    // changed since the commit flipped, which becomes the committed one when the header of the next epoch is written.
+    private long committedEpoch;
+    private int liveCount;
+    private int usedCount; //The records that are live or deleted; the others are empty.
+    private int cityCount;
+    private int extentsUsed;
+    private int extentsFreed; //The extents of the cancelled voyages, which are only given back by the next migration.
+    private boolean isGrown; //Whether the extents have grown since the last commit, which changes the length of the file.
+    private String[] cityNames;
+    private final Map<String, Integer> cityIDs = new HashMap<String, Integer>();
+    private int[] flippedRecords = new int[64]; //The records whose current half has changed since the last commit.
+    private int flippedCount;
+    private boolean isChanged; //Whether anything has been written since the last commit.
+    private int pendingChanges; //Changes reported to the listener since the last commit.
+    private int storedVoyages;
+
+    /**
+     * The seat map of a voyage, which only holds the index of its record; the words and the counts are read from and
+     * written into the current half of the record in the mapped file.
+     */
+    private static final class MappedSeatMap extends SeatMap {
+        private final MappedSeatStore store;
+        private int voyageID;
+        private int record = -1; //-1 until the voyage is added to the store, and again once it is removed.
+        private int generation;
+
+        MappedSeatMap(MappedSeatStore store, SeatLayout layout, int numberOfRows) {
+            super(layout, numberOfRows);
+            this.store = store;
+        }
+
+        @Override
+        public boolean isMaterialized() {
+            return countOccupiedRegular() + countOccupiedPremium() > 0;
+        }
+
+        @Override
+        public long getWord(int wordIndex) {
+            int record = record();
+            return record < 0 ? 0 : store.mapping.getLong(store.wordsOffset(store.currentOffset(record), getNumberOfWords()) + wordIndex * 8);
+        }
+
+        @Override
+        protected void putWord(int wordIndex, long word) {
+            store.mapping.putLong(store.wordsOffset(store.touch(boundRecord(), true), getNumberOfWords()) + wordIndex * 8, word);
+        }
+
+        @Override
+        protected void addOccupied(int regularSeats, int premiumSeats) {
+            MappedByteBuffer mapping = store.mapping;
+            int offset = store.touch(boundRecord(), true);
+            mapping.putInt(offset + OCCUPIED_REGULAR, mapping.getInt(offset + OCCUPIED_REGULAR) + regularSeats);
+            mapping.putInt(offset + OCCUPIED_PREMIUM, mapping.getInt(offset + OCCUPIED_PREMIUM) + premiumSeats);
+        }
+
+        @Override
+        public int countOccupiedRegular() {
+            int record = record();
+            return record < 0 ? 0 : store.mapping.getInt(store.currentOffset(record) + OCCUPIED_REGULAR);
+        }
+
+        @Override
+        public int countOccupiedPremium() {
+            int record = record();
+            return record < 0 ? 0 : store.mapping.getInt(store.currentOffset(record) + OCCUPIED_PREMIUM);
+        }
+
+        @Override
+        public void free() {
+            if (record() >= 0) {
+                store.delete(record);
+                record = -1;
+            }
+        }
+
+        private void bind(int voyageID, int record) {
+            this.voyageID = voyageID;
+            this.record = record;
+            generation = store.generation;
+        }
+
+        private int record() { //A migration moves the records, so the record is looked up again after one.
+            if (generation != store.generation && record >= 0) {
+                record = store.find(voyageID);
+                generation = store.generation;
+            }
+            return record;
+        }
+
+        private int boundRecord() {
+            int record = record();
+            if (record < 0) {
+                throw new IllegalStateException("The seats of a voyage are changed before the voyage is added to the seat store.");
+            }
+            return record;
+        }
+    }
+
+    private MappedSeatStore(Path path, int groupSize) {
+        this.path = path;
+        this.groupSize = groupSize;
+    }
+
+    /**
+     * Opens the seat store at the given path, creating it if it does not exist. The store is ready as soon as the
+     * header and the city names are read: the seats of the voyages stay in their records in the memory-mapped file,
+     * and a voyage is only constructed when a registry built over the store as its VoyageSource looks it up. Every
+     * change is written straight into the record of its voyage, and the changes are committed once per group of
+     * changes reported to the store as the IVoyageListener of the run.
+     * <p>
+     * Every record has two halves, and a bitmap tells which one holds the committed state of the voyage. The first
+     * change of a voyage after a commit copies that half into the other one, which takes all the changes until the
+     * next commit. A commit forces the records and a second bitmap, in which the changed records are flipped, to the
+     * disk before it writes the header that makes that bitmap the committed one, and forces the header after them;
+     * so a crash at any point leaves every voyage as it was at the last commit, and whatever was written after it is
+     * never read. The store is not thread safe.
+     *
+     * @param path      Path to the store file.
+     * @param groupSize The number of changes committed together; 1 commits every change on its own.
+     * @return The store, ready to record the changes that follow.
+     * @throws IOException If the store cannot be opened or is not a valid seat store.
+     */
+    public static MappedSeatStore open(String path, int groupSize) throws IOException {
+        MappedSeatStore store = new MappedSeatStore(Paths.get(path), Math.max(1, groupSize));
+        store.channel = FileChannel.open(store.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (store.channel.size() == 0) {
+                store.create(DEFAULT_WORDS, DEFAULT_CITIES, INITIAL_RECORDS, INITIAL_EXTENTS);
+            } else {
+                store.load();
+            }
+        } catch (IOException | RuntimeException e) {
+            store.channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /**
+     * Returns the number of voyages the store held when it was opened.
+     *
+     * @return The number of stored voyages.
+     */
+    public int getStoredVoyages() {
+        return storedVoyages;
+    }
+
+    /**
+     * Creates the seat map of a new voyage. It holds no seats until the voyage is reported to voyageInitialized(),
+     * which gives it a record in the store, and an extent for its words if they do not fit into the record.
+     *
+     * @param layout       The layout of a row of seats.
+     * @param numberOfRows The number of seat rows.
+     * @return The seat map.
+     */
+    @Override
+    public SeatMap newSeatMap(SeatLayout layout, int numberOfRows) {
+        return new MappedSeatMap(this, layout, numberOfRows);
+    }
+
+    @Override
+    public Voyage load(int voyageID) {
+        int record = find(voyageID);
+        if (record < 0) {
+            return null;
+        }
+        int offset = currentOffset(record);
+        Voyage voyage = VoyageCodec.create(voyageID, mapping.get(offset + KIND), cityName(mapping.getInt(offset + FROM_CITY)),
+                cityName(mapping.getInt(offset + TO_CITY)), mapping.getInt(offset + ROWS), mapping.getDouble(offset + PRICE),
+                mapping.getInt(offset + REFUND_CUT), mapping.getInt(offset + PREMIUM_FEE), this);
+        MappedSeatMap seatMap = (MappedSeatMap) voyage.getSeatMap();
+        int words = seatMap.getNumberOfWords();
+        if (mapping.getInt(offset + NUMBER_OF_WORDS) != words || (words > wordsPerRecord
+                && isInExtents(mapping.getInt(offset + EXTENT), 16L * words) == false)) {
+            throw new IllegalStateException(path + " is damaged, the seats of voyage " + voyageID + " do not match its rows");
+        }
+        seatMap.bind(voyageID, record);
+        voyage.setRevenue(mapping.getDouble(offset + REVENUE));
+        return voyage;
+    }
+
+    @Override
+    public int[] getVoyageIDs() {
+        int[] voyageIDs = new int[liveCount];
+        int count = 0;
+        for (int record = 0; record < recordCapacity; record++) {
+            int offset = currentOffset(record);
+            if (mapping.get(offset + STATE) == LIVE) {
+                voyageIDs[count++] = mapping.getInt(offset + VOYAGE_ID);
+            }
+        }
+        return voyageIDs;
+    }
+
+    @Override
+    public void voyageInitialized(Voyage voyage) throws IOException {
+        if (voyage.getSeatMap() instanceof MappedSeatMap == false || ((MappedSeatMap) voyage.getSeatMap()).store != this) {
+            throw new IllegalArgumentException("The seats of voyage " + voyage.getVoyageID() + " are not kept in this seat store.");
+        }
+        MappedSeatMap seatMap = (MappedSeatMap) voyage.getSeatMap();
+        if (makeRoom(voyage) == false) {
+            throw new IOException("There is no room for voyage " + voyage.getVoyageID() + " in " + path);
+        }
+
+        int record = insert(voyage.getVoyageID());
+        int offset = touch(record, false);
+        clear(offset, halfSize); //The half may still hold a voyage written before.
+        mapping.putInt(offset + VOYAGE_ID, voyage.getVoyageID());
+        mapping.put(offset + STATE, LIVE);
+        mapping.put(offset + KIND, VoyageCodec.kindOf(voyage));
+        mapping.putInt(offset + ROWS, voyage.getNumberOfRows());
+        mapping.putInt(offset + REFUND_CUT, voyage.getRefundCut());
+        mapping.putDouble(offset + PRICE, voyage.getPrice());
+        mapping.putInt(offset + PREMIUM_FEE, voyage.getPremiumFee());
+        mapping.putInt(offset + FROM_CITY, cityID(voyage.getFrom()));
+        mapping.putInt(offset + TO_CITY, cityID(voyage.getTo()));
+        mapping.putInt(offset + NUMBER_OF_WORDS, seatMap.getNumberOfWords());
+        mapping.putDouble(offset + REVENUE, voyage.getRevenue());
+        if (seatMap.getNumberOfWords() > wordsPerRecord) { //The extent has a half of the words for each half of the record.
+            mapping.putInt(offset + EXTENT, allocate(16 * seatMap.getNumberOfWords()));
+            clear(wordsOffset(offset, seatMap.getNumberOfWords()), 8 * seatMap.getNumberOfWords()); //A crashed run may have used the extent.
+        }
+        seatMap.bind(voyage.getVoyageID(), record);
+        changed();
+    }
+
+    /**
+     * Makes room in the file for a new voyage, and its cities, before it is registered. The records and the cities
+     * are migrated into a larger file when there are not enough of them, and the extents grow in place when the
+     * words of the voyage or the names of its cities do not fit into them; whatever is too small is at least
+     * doubled, so that the next voyages fit as well.
+     *
+     * @param voyage The voyage to be added, with its seat plan.
+     * @return True if there is room for the voyage, false if the file would grow beyond the largest possible mapping.
+     * @throws IOException If an I/O error occurs while migrating the file.
+     */
+    @Override
+    public boolean makeRoom(Voyage voyage) throws IOException {
+        int words = voyage.getSeatMap().getNumberOfWords();
+        long extents = words > wordsPerRecord ? 16L * words : 0;
+        int newCities = 0;
+        for (String city : new String[]{voyage.getFrom(), voyage.getTo()}) {
+            if (cityIDs.containsKey(city) == false) { //A new city that is both ends is counted twice, which only spares some room.
+                extents += cityExtentSize(city);
+                newCities++;
+            }
+        }
+        boolean hasRecord = usedCount + 1 <= recordCapacity / 2; //At most half of the table is used, so probe sequences stay short.
+        boolean hasCities = cityCount + newCities <= cityCapacity;
+        if (hasRecord && hasCities && extentsUsed + extents <= extentsCapacity) {
+            return true;
+        }
+
+        long liveExtents = extentsUsed - extentsFreed + extents;
+        if (hasRecord && hasCities && extentsFreed <= liveExtents) {
+            long capacity = Math.max(extentsUsed + extents, Math.min(2L * extentsCapacity, Integer.MAX_VALUE - extentsOffset));
+            if (extentsOffset + capacity > Integer.MAX_VALUE) { //A single mapping cannot be larger.
+                return false;
+            }
+            extentsCapacity = (int) capacity;
+            map();
+            isGrown = true;
+            return true;
+        }
+
+        //The migration drops the deleted records and the extents of the cancelled voyages as well.
+        int cities = hasCities ? cityCapacity : Math.max(cityCapacity, 2 * (cityCount + newCities));
+        int capacity = (liveCount + 1) * 4 > recordCapacity ? 2 * recordCapacity : recordCapacity;
+        long fixedSize = fileSize(wordsPerRecord, cities, capacity, 0);
+        if (fixedSize + liveExtents > Integer.MAX_VALUE) {
+            return false;
+        }
+        migrate(cities, capacity, (int) Math.max(liveExtents, Math.min(Math.max(2 * liveExtents, INITIAL_EXTENTS),
+                Integer.MAX_VALUE - fixedSize)));
+        return true;
+    }
+
+    @Override
+    public void ticketsSold(Voyage voyage, SeatList seats) throws IOException {
+        writeRevenue(voyage);
+    }
+
+    @Override
+    public void ticketsRefunded(Voyage voyage, SeatList seats) throws IOException {
+        writeRevenue(voyage);
+    }
+
+    @Override
+    public void voyageCancelled(Voyage voyage) throws IOException {
+        changed(); //The registry has already freed the seat map, which deleted the record.
+    }
+
+    /**
+     * Commits the changes written so far: the records and the working bitmap are forced to the disk first, and then
+     * the header that makes them the committed state.
+     *
+     * @throws IOException If an I/O error occurs while writing the store.
+     */
+    public void commit() throws IOException {
+        if (isChanged == false) {
+            return;
+        }
+        mapping.force();
+        if (isGrown) { //The header must not be read before the file is as long as it says.
+            channel.force(true);
+            isGrown = false;
+        }
+        writeHeader(committedEpoch + 1);
+        mapping.force();
+        committedEpoch++;
+
+        //The bitmap committed until now becomes the working one; it only lacks the flips of the epoch just committed.
+        int working = workingBitmap();
+        for (int i = 0; i < flippedCount; i++) {
+            flip(working, flippedRecords[i]);
+        }
+        flippedCount = 0;
+        isChanged = false;
+        pendingChanges = 0;
+    }
+
+    /**
+     * Commits the remaining changes and closes the store file.
+     *
+     * @throws IOException If an I/O error occurs while writing the store.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void create(int words, int cities, int capacity, int extents) throws IOException {
+        setGeometry(words, cities, capacity, extents);
+        map();
+        committedEpoch = 0;
+        liveCount = 0;
+        usedCount = 0;
+        cityCount = 0;
+        extentsUsed = 0;
+        extentsFreed = 0;
+        isGrown = false;
+        cityIDs.clear();
+        flippedCount = 0;
+        isChanged = false;
+        pendingChanges = 0;
+        writeHeader(0);
+        mapping.force();
+    }
+
+    private void load() throws IOException {
+        ByteBuffer headers = ByteBuffer.allocate(2 * HEADER_SIZE);
+        while (headers.hasRemaining() && channel.read(headers, headers.position()) >= 0) {
+            //Reads until both copies of the header are read.
+        }
+        ByteBuffer header = null;
+        for (int copy = 0; copy < 2; copy++) {
+            ByteBuffer candidate = ByteBuffer.wrap(headers.array(), copy * HEADER_SIZE, HEADER_SIZE).slice();
+            if (isValidHeader(candidate) && (header == null || candidate.getLong(12) > header.getLong(12))) {
+                header = candidate;
+            }
+        }
+        if (header == null) {
+            throw new IOException(path + " is not a seat store of a known format");
+        }
+        committedEpoch = header.getLong(12);
+        setGeometry(header.getInt(20), header.getInt(24), header.getInt(28), header.getInt(32));
+        liveCount = header.getInt(36);
+        usedCount = header.getInt(40);
+        cityCount = header.getInt(44);
+        extentsUsed = header.getInt(48);
+        extentsFreed = header.getInt(52);
+        if (channel.size() < extentsOffset + (long) extentsCapacity) {
+            throw new IOException(path + " is damaged, it is shorter than its header says");
+        }
+        if (liveCount < 0 || liveCount > usedCount || usedCount > recordCapacity / 2 || cityCount < 0 || cityCount > cityCapacity
+                || extentsUsed < 0 || extentsUsed > extentsCapacity || extentsFreed < 0 || extentsFreed > extentsUsed) {
+            throw new IOException(path + " is damaged, its header is not valid");
+        }
+        //Whatever a crashed run left unforced reaches the disk first, as the header it read may be one of them,
+        // and the working bitmap and halves written from now on may belong to the commit before it.
+        channel.force(false);
+        map();
+
+        for (int i = 0; i < cityCount; i++) {
+            int offset = mapping.getInt(CITIES_OFFSET + 4 * i);
+            if (isInExtents(offset, 4) == false || isInExtents(offset, 4L + mapping.getInt(offset)) == false
+                    || mapping.getInt(offset) < 0) {
+                throw new IOException(path + " is damaged, the name of city " + i + " is not in its extents");
+            }
+            byte[] bytes = new byte[mapping.getInt(offset)];
+            view.clear();
+            view.position(offset + 4);
+            view.get(bytes);
+            cityNames[i] = new String(bytes, StandardCharsets.UTF_8);
+            cityIDs.put(cityNames[i], i);
+        }
+        //The working bitmap may still hold the flips of records written after the last commit, whose halves are
+        // ignored by starting over from the committed bitmap.
+        copy(bitmapOffset + (1 - workingBitmap()) * bitmapSize, bitmapOffset + workingBitmap() * bitmapSize, bitmapSize);
+        storedVoyages = liveCount;
+    }
+
+    private void setGeometry(int words, int cities, int capacity, int extents) throws IOException {
+        if (words < 0 || cities < 0 || capacity < 8 || Integer.bitCount(capacity) != 1 || extents < 0) {
+            throw new IOException(path + " is damaged, its header is not valid");
+        }
+        long size = fileSize(words, cities, capacity, extents);
+        if (size > Integer.MAX_VALUE) { //A single mapping cannot be larger.
+            throw new IOException(path + " is damaged, it would be larger than a mapping can be: " + size + " bytes");
+        }
+        wordsPerRecord = words;
+        cityCapacity = cities;
+        recordCapacity = capacity;
+        extentsCapacity = extents;
+        halfSize = RECORD_HEADER_SIZE + 8 * words;
+        bitmapOffset = (int) align(CITIES_OFFSET + 4L * cities);
+        bitmapSize = (int) align(capacity / 8);
+        recordsOffset = bitmapOffset + 2 * bitmapSize;
+        extentsOffset = (int) (size - extents);
+        cityNames = new String[cities];
+    }
+
+    private static long fileSize(int words, int cities, int capacity, long extents) {
+        long records = align(CITIES_OFFSET + 4L * cities) + 2 * align(capacity / 8);
+        return align(records + (long) capacity * 2 * (RECORD_HEADER_SIZE + 8L * words)) + extents;
+    }
+
+    private void map() throws IOException { //A larger mapping makes the file longer.
+        mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, extentsOffset + (long) extentsCapacity);
+        view = mapping.duplicate();
+    }
+
+    private int allocate(int size) { //Takes an extent at the end of the used ones; makeRoom() has made sure that there is room.
+        int offset = extentsOffset + extentsUsed;
+        extentsUsed += size;
+        isChanged = true;
+        return offset;
+    }
+
+    private boolean isInExtents(int offset, long size) {
+        return offset >= extentsOffset && offset + size <= extentsOffset + (long) extentsUsed;
+    }
+
+    private static int cityExtentSize(String city) { //The length and the bytes of the name, padded to keep the words aligned.
+        return (4 + VoyageCodec.utf8Length(city) + 7) & ~7;
+    }
+
+    private int cityID(String city) {
+        Integer cityID = cityIDs.get(city);
+        if (cityID == null) { //makeRoom() has made sure that there is room for it.
+            cityID = cityCount++;
+            byte[] bytes = city.getBytes(StandardCharsets.UTF_8);
+            int offset = allocate(cityExtentSize(city));
+            mapping.putInt(offset, bytes.length);
+            view.clear();
+            view.position(offset + 4);
+            view.put(bytes);
+            mapping.putInt(CITIES_OFFSET + 4 * cityID, offset);
+            cityNames[cityID] = city;
+            cityIDs.put(city, cityID);
+            isChanged = true;
+        }
+        return cityID;
+    }
+
+    private String cityName(int cityID) {
+        if (cityID < 0 || cityID >= cityCount) {
+            throw new IllegalStateException(path + " is damaged, it refers to city " + cityID + ", which it does not hold");
+        }
+        return cityNames[cityID];
+    }
+
+    private int find(int voyageID) { //Returns the record of the live voyage with the given ID, or -1.
+        int mask = recordCapacity - 1;
+        for (int record = hash(voyageID) & mask, probes = 0; probes < recordCapacity; record = (record + 1) & mask, probes++) {
+            int offset = currentOffset(record);
+            byte state = mapping.get(offset + STATE);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == LIVE && mapping.getInt(offset + VOYAGE_ID) == voyageID) {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    private int insert(int voyageID) { //Takes a record for a voyage whose ID is not stored; makeRoom() has made sure that there is room.
+        int mask = recordCapacity - 1;
+        int record = hash(voyageID) & mask;
+        byte state;
+        while ((state = mapping.get(currentOffset(record) + STATE)) == LIVE) {
+            record = (record + 1) & mask;
+        }
+        if (state == EMPTY) {
+            usedCount++;
+        }
+        liveCount++;
+        return record;
+    }
+
+    private void delete(int record) {
+        int words = mapping.getInt(currentOffset(record) + NUMBER_OF_WORDS);
+        if (words > wordsPerRecord) {
+            extentsFreed += 16 * words;
+        }
+        mapping.put(touch(record, false) + STATE, DELETED);
+        liveCount--;
+    }
+
+    private void writeRevenue(Voyage voyage) throws IOException {
+        int record = ((MappedSeatMap) voyage.getSeatMap()).boundRecord();
+        mapping.putDouble(touch(record, true) + REVENUE, voyage.getRevenue());
+        changed();
+    }
+
+    private void changed() throws IOException {
+        if (++pendingChanges >= groupSize) {
+            commit();
+        }
+    }
+
+    private int touch(int record, boolean keep) { //Returns the offset of the half the changes of the current epoch go into.
+        int working = workingBitmap();
+        int half = bit(working, record);
+        if (half == bit(1 - working, record)) { //The first change since the commit leaves the committed half intact.
+            int committedOffset = halfOffset(record, half);
+            half ^= 1;
+            if (keep) {
+                copy(committedOffset, halfOffset(record, half), halfSize);
+                int words = mapping.getInt(committedOffset + NUMBER_OF_WORDS);
+                if (words > wordsPerRecord) {
+                    copy(wordsOffset(committedOffset, words), wordsOffset(halfOffset(record, half), words), 8 * words);
+                }
+            }
+            flip(working, record);
+            if (flippedCount == flippedRecords.length) {
+                flippedRecords = Arrays.copyOf(flippedRecords, flippedCount * 2);
+            }
+            flippedRecords[flippedCount++] = record;
+        }
+        isChanged = true;
+        return halfOffset(record, half);
+    }
+
+    private int currentOffset(int record) {
+        return halfOffset(record, bit(workingBitmap(), record));
+    }
+
+    private int halfOffset(int record, int half) {
+        return recordsOffset + (2 * record + half) * halfSize;
+    }
+
+    private int wordsOffset(int offset, int numberOfWords) { //The words of the voyage whose record half is at the given offset.
+        if (numberOfWords <= wordsPerRecord) {
+            return offset + RECORD_HEADER_SIZE;
+        }
+        int half = (offset - recordsOffset) / halfSize & 1;
+        return mapping.getInt(offset + EXTENT) + half * 8 * numberOfWords;
+    }
+
+    private int workingBitmap() { //The bitmap and the header of an epoch are the copies its parity selects.
+        return (int) (~committedEpoch & 1);
+    }
+
+    private int bit(int bitmap, int record) {
+        return mapping.get(bitmapOffset + bitmap * bitmapSize + (record >>> 3)) >>> (record & 7) & 1;
+    }
+
+    private void flip(int bitmap, int record) {
+        int offset = bitmapOffset + bitmap * bitmapSize + (record >>> 3);
+        mapping.put(offset, (byte) (mapping.get(offset) ^ (1 << (record & 7))));
+    }
+
+    private void clear(int offset, int length) {
+        for (int i = 0; i < length; i += 8) {
+            mapping.putLong(offset + i, 0);
+        }
+    }
+
+    private void copy(int from, int to, int length) {
+        ByteBuffer source = mapping.duplicate();
+        source.position(from);
+        source.limit(from + length);
+        view.clear();
+        view.position(to);
+        view.put(source);
+    }
+
+    private void writeHeader(long epoch) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(4, MAGIC);
+        header.putInt(8, FORMAT_VERSION);
+        header.putLong(12, epoch);
+        header.putInt(20, wordsPerRecord);
+        header.putInt(24, cityCapacity);
+        header.putInt(28, recordCapacity);
+        header.putInt(32, extentsCapacity);
+        header.putInt(36, liveCount);
+        header.putInt(40, usedCount);
+        header.putInt(44, cityCount);
+        header.putInt(48, extentsUsed);
+        header.putInt(52, extentsFreed);
+        crc.reset();
+        crc.update(header.array(), 4, HEADER_SIZE - 4);
+        header.putInt(0, (int) crc.getValue());
+        view.clear();
+        view.position((int) (epoch & 1) * HEADER_SIZE); //The copy of the previous commit stays intact.
+        view.put(header);
+    }
+
+    private boolean isValidHeader(ByteBuffer header) {
+        crc.reset();
+        crc.update(header.array(), header.arrayOffset() + 4, HEADER_SIZE - 4);
+        return header.getInt(0) == (int) crc.getValue() && header.getInt(4) == MAGIC && header.getInt(8) == FORMAT_VERSION;
+    }
+
+    private void migrate(int cities, int capacity, int extents) throws IOException {
+        //The live voyages are copied into a new file, committed there, and the new file is moved over the old one,
+        // so a crash before the move leaves the old file as it was at its last commit. The uncommitted changes are
+        // copied as well, so the migration commits them.
+        MappedByteBuffer oldMapping = mapping;
+        int oldCapacity = recordCapacity;
+        int oldHalfSize = halfSize;
+        int words = wordsPerRecord;
+        int oldRecordsOffset = recordsOffset;
+        int oldBitmapOffset = bitmapOffset + workingBitmap() * bitmapSize;
+        String[] oldCityNames = cityNames;
+        FileChannel oldChannel = channel;
+        Path temporary = Paths.get(path + ".tmp");
+        channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            create(words, cities, capacity, extents);
+            for (int record = 0; record < oldCapacity; record++) {
+                int half = oldMapping.get(oldBitmapOffset + (record >>> 3)) >>> (record & 7) & 1;
+                int oldOffset = oldRecordsOffset + (2 * record + half) * oldHalfSize;
+                if (oldMapping.get(oldOffset + STATE) != LIVE) {
+                    continue;
+                }
+                int numberOfWords = oldMapping.getInt(oldOffset + NUMBER_OF_WORDS);
+                int offset = touch(insert(oldMapping.getInt(oldOffset + VOYAGE_ID)), false); //A half of the new file is all zeros.
+                ByteBuffer fields = oldMapping.duplicate();
+                fields.position(oldOffset);
+                fields.limit(oldOffset + (numberOfWords > words ? RECORD_HEADER_SIZE : RECORD_HEADER_SIZE + 8 * numberOfWords));
+                view.clear();
+                view.position(offset);
+                view.put(fields);
+                mapping.putInt(offset + FROM_CITY, cityID(oldCityNames[oldMapping.getInt(oldOffset + FROM_CITY)]));
+                mapping.putInt(offset + TO_CITY, cityID(oldCityNames[oldMapping.getInt(oldOffset + TO_CITY)]));
+                if (numberOfWords > words) { //The extent is copied without the half that is not current.
+                    int oldWords = oldMapping.getInt(oldOffset + EXTENT) + half * 8 * numberOfWords;
+                    mapping.putInt(offset + EXTENT, allocate(16 * numberOfWords));
+                    ByteBuffer seats = oldMapping.duplicate();
+                    seats.position(oldWords);
+                    seats.limit(oldWords + 8 * numberOfWords);
+                    view.clear();
+                    view.position(wordsOffset(offset, numberOfWords));
+                    view.put(seats);
+                }
+            }
+            commit();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            oldChannel.close();
+            try { //The old file is still the store, so the half-written new one is of no use.
+                Files.deleteIfExists(temporary);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        oldChannel.close();
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        generation++;
+    }
+
+    private static long align(long offset) { //Every region starts on a cache line.
+        return (offset + 63) & ~63L;
+    }
+
+    private static int hash(int voyageID) { //Consecutive IDs are spread over the table to keep the probe sequences short.
+        int h = voyageID * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,84 @@
+import java.io.IOException;
+import java.text.DecimalFormat;
+
+public final class MoneyFormat {
+    private static final double FAST_PATH_LIMIT = 1e9; //Below this the exact product with 100 is found with plain double arithmetic.
+    private static final double SPLITTER = 134217729.0; //2^27 + 1, used to split a double into two halves without rounding.
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L
+    };
+    private static final ThreadLocal<DecimalFormat> FALLBACK = new ThreadLocal<DecimalFormat>() {
+        @Override
+        protected DecimalFormat initialValue() {
+            return new DecimalFormat("0.00");
+        }
+    };
+
+    private MoneyFormat() {
+    }
+
+    /**
+     * Appends the given value with two decimal places, rounded half to even as DecimalFormat("0.00") does.
+     * Values that are not finite or too large to be handled exactly go through DecimalFormat.
+     *
+     * @param writer The ReportSink the value is written into.
+     * @param value  The value to be written.
+     * @throws IOException If an I/O error occurs while writing to the output file.
+     */
+    public static void append(ReportSink writer, double value) throws IOException {
+        double magnitude = Math.abs(value);
+        if (!(magnitude < FAST_PATH_LIMIT)) { //Also true for NaN.
+            writer.write(FALLBACK.get().format(value).replace(',', '.'));
+            return;
+        }
+        if (value < 0 || (value == 0 && 1 / value < 0)) { //DecimalFormat keeps the sign of a negative value that rounds to zero, and of -0.0.
+            writer.write('-');
+        }
+
+        long cents = roundToCents(magnitude);
+        long units = cents / 100;
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && units >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            writer.write((char) ('0' + units / POWERS_OF_TEN[i] % 10));
+        }
+        writer.write('.');
+        writer.write((char) ('0' + cents / 10 % 10));
+        writer.write((char) ('0' + cents % 10));
+    }
+
+    /**
+     * Formats the given value with two decimal places, rounded half to even as DecimalFormat("0.00") does.
+     *
+     * @param value The value to be formatted.
+     * @return The formatted value, with '.' as the decimal separator.
+     */
+    public static String format(double value) {
+        ReportSink sink = ReportSink.inMemory();
+        try {
+            append(sink, value);
+        } catch (IOException e) { //An in-memory sink does not write to any file.
+            throw new IllegalStateException(e);
+        }
+        return sink.toString();
+    }
+
+    private static long roundToCents(double magnitude) {
+        //The product with 100 is split into its rounded value and the exact rounding error (Dekker's product),
+        // so that values on or next to a half cent are rounded by their exact binary value as DecimalFormat does.
+        double product = magnitude * 100;
+        double split = SPLITTER * magnitude;
+        double high = split - (split - magnitude);
+        double low = magnitude - high;
+        double error = low * 100 - (product - high * 100);
+
+        long whole = (long) product;
+        double aboveHalf = (product - whole - 0.5) + error;
+        if (aboveHalf > 0 || (aboveHalf == 0 && (whole & 1) != 0)) {
+            whole++;
+        }
+        return whole;
+    }
+}
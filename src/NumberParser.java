@@ -0,0 +1,102 @@
+public final class NumberParser {
+    public static final long INVALID = Long.MIN_VALUE; //Returned instead of throwing when a field is not a valid int.
+    private static final int MAX_EXACT_DIGITS = 15; //Any 15 digit integer is exact in a double.
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumberParser() {
+    }
+
+    /**
+     * Parses a range of characters as a decimal int with the same rules as Integer.parseInt: an optional
+     * sign, at least one digit (any Unicode decimal digit) and a value within the int range.
+     *
+     * @param text  The characters.
+     * @param start The index of the first character of the number.
+     * @param end   The index after the last character of the number.
+     * @return The parsed value, or INVALID if Integer.parseInt would throw a NumberFormatException.
+     */
+    public static long parseInt(char[] text, int start, int end) {
+        if (start >= end) {
+            return INVALID;
+        }
+        boolean negative = false;
+        int limit = -Integer.MAX_VALUE;
+        int i = start;
+        char first = text[i];
+        if (first < '0') {
+            if (first == '-') {
+                negative = true;
+                limit = Integer.MIN_VALUE;
+            } else if (first != '+') {
+                return INVALID;
+            }
+            if (++i == end) { //A lone sign is not a number.
+                return INVALID;
+            }
+        }
+
+        //The value is accumulated negatively, as Integer.parseInt does, so that Integer.MIN_VALUE fits.
+        int multiplierMinimum = limit / 10;
+        int result = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(text[i], 10);
+            if (digit < 0 || result < multiplierMinimum) {
+                return INVALID;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return INVALID;
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses a range of characters as a double with the same result as Double.parseDouble. A plain decimal such
+     * as "125" or "-12.50" with at most 15 digits is converted in place: its digits and its power of ten are
+     * both exact doubles, so a single division rounds the value correctly. Anything else, such as an exponent,
+     * more digits or surrounding spaces, is handed to Double.parseDouble.
+     *
+     * @param text  The characters.
+     * @param start The index of the first character of the number.
+     * @param end   The index after the last character of the number.
+     * @return The parsed value.
+     * @throws NumberFormatException If the characters are not a number.
+     */
+    public static double parseDouble(char[] text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i] == '-';
+            i++;
+        }
+        long digits = 0;
+        int digitCount = 0;
+        int fractionDigits = 0;
+        boolean hasPoint = false;
+        for (; i < end; i++) {
+            char c = text[i];
+            if (c >= '0' && c <= '9') {
+                digits = digits * 10 + (c - '0');
+                digitCount++;
+                if (hasPoint) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !hasPoint) {
+                hasPoint = true;
+            } else {
+                digitCount = -1;
+                break;
+            }
+        }
+        if (digitCount <= 0 || digitCount > MAX_EXACT_DIGITS) {
+            return Double.parseDouble(new String(text, start, end - start));
+        }
+        double value = fractionDigits == 0 ? (double) digits : (double) digits / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+}
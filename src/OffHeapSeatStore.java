@@ -0,0 +1,198 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class OffHeapSeatStore implements SeatStore {
+    private static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+    private static final int COUNTS_SIZE = 8; //The sold regular and premium seats, an int each, before the words.
+
+    private final int chunkSize;
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0]; //Replaced as a whole when a chunk is added, so reads need no lock.
+    private int top; //The first unused byte of the last chunk.
+    private final Map<Integer, FreeList> freeLists = new HashMap<Integer, FreeList>(); //Freed records by their size.
+    private long usedBytes;
+
+    /**
+     * The addresses of the freed records of one size, reused before new room is taken from a chunk.
+     */
+    private static final class FreeList {
+        long[] addresses = new long[16];
+        int size;
+    }
+
+    /**
+     * The seat map of a voyage, which only holds the address of its record; the words and the counts are kept in
+     * the direct buffers of the store.
+     */
+    private static final class OffHeapSeatMap extends SeatMap {
+        private final OffHeapSeatStore store;
+        private long address = -1; //-1 until the first seat is sold.
+
+        OffHeapSeatMap(OffHeapSeatStore store, SeatLayout layout, int numberOfRows) {
+            super(layout, numberOfRows);
+            this.store = store;
+        }
+
+        @Override
+        public boolean isMaterialized() {
+            return address >= 0;
+        }
+
+        @Override
+        public long getWord(int wordIndex) {
+            return address < 0 ? 0 : store.chunkOf(address).getLong(offsetOf(address) + COUNTS_SIZE + wordIndex * 8);
+        }
+
+        @Override
+        protected void putWord(int wordIndex, long word) {
+            if (address < 0) {
+                address = store.allocate(recordSize(getNumberOfWords()));
+            }
+            store.chunkOf(address).putLong(offsetOf(address) + COUNTS_SIZE + wordIndex * 8, word);
+        }
+
+        @Override
+        protected void addOccupied(int regularSeats, int premiumSeats) {
+            ByteBuffer chunk = store.chunkOf(address);
+            int offset = offsetOf(address);
+            chunk.putInt(offset, chunk.getInt(offset) + regularSeats);
+            chunk.putInt(offset + 4, chunk.getInt(offset + 4) + premiumSeats);
+        }
+
+        @Override
+        public int countOccupiedRegular() {
+            return address < 0 ? 0 : store.chunkOf(address).getInt(offsetOf(address));
+        }
+
+        @Override
+        public int countOccupiedPremium() {
+            return address < 0 ? 0 : store.chunkOf(address).getInt(offsetOf(address) + 4);
+        }
+
+        @Override
+        public void free() {
+            if (address >= 0) {
+                store.free(address, recordSize(getNumberOfWords()));
+                address = -1;
+            }
+        }
+    }
+
+    /**
+     * Constructs an OffHeapSeatStore that takes direct buffers of 64 MB as they are needed.
+     */
+    public OffHeapSeatStore() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs an OffHeapSeatStore that takes direct buffers of the given size as they are needed. A voyage whose
+     * seats do not fit into one gets a buffer of its own.
+     *
+     * @param chunkSize The size of a direct buffer in bytes.
+     */
+    public OffHeapSeatStore(int chunkSize) {
+        if (chunkSize < COUNTS_SIZE + 8) {
+            throw new IllegalArgumentException("A chunk must hold the seats of at least one voyage.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates the seat map of a new voyage. Its seats take room in a direct buffer once one of them is sold, so the
+     * heap only holds a small object per voyage, which the garbage collector does not have to look into.
+     *
+     * @param layout       The layout of a row of seats.
+     * @param numberOfRows The number of seat rows.
+     * @return The seat map.
+     */
+    @Override
+    public SeatMap newSeatMap(SeatLayout layout, int numberOfRows) {
+        return new OffHeapSeatMap(this, layout, numberOfRows);
+    }
+
+    /**
+     * Accepts every voyage, as its record is only taken when its first seat is sold, from a buffer of its own if it
+     * does not fit into a chunk.
+     *
+     * @param voyage The voyage to be registered.
+     * @return True.
+     */
+    @Override
+    public boolean makeRoom(Voyage voyage) {
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes of the direct buffers taken by the seats of the voyages, without the freed records.
+     *
+     * @return The number of bytes in use.
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Returns the number of bytes of the direct buffers that have been allocated.
+     *
+     * @return The capacity of all the direct buffers.
+     */
+    public long getCapacity() {
+        long capacity = 0;
+        for (ByteBuffer chunk : chunks) {
+            capacity += chunk.capacity();
+        }
+        return capacity;
+    }
+
+    private synchronized long allocate(int size) {
+        usedBytes += size;
+        FreeList freeList = freeLists.get(size);
+        if (freeList != null && freeList.size > 0) {
+            long address = freeList.addresses[--freeList.size];
+            ByteBuffer chunk = chunkOf(address);
+            int offset = offsetOf(address);
+            for (int i = 0; i < size; i += 8) { //A reused record still holds the seats of the voyage that freed it.
+                chunk.putLong(offset + i, 0);
+            }
+            return address;
+        }
+
+        ByteBuffer[] current = chunks;
+        if (current.length == 0 || top + size > current[current.length - 1].capacity()) {
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = ByteBuffer.allocateDirect(Math.max(chunkSize, size)); //Direct buffers start zeroed.
+            chunks = current;
+            top = 0;
+        }
+        long address = ((long) (current.length - 1) << 32) | top;
+        top += size;
+        return address;
+    }
+
+    private synchronized void free(long address, int size) {
+        usedBytes -= size;
+        FreeList freeList = freeLists.get(size);
+        if (freeList == null) {
+            freeList = new FreeList();
+            freeLists.put(size, freeList);
+        }
+        if (freeList.size == freeList.addresses.length) {
+            freeList.addresses = Arrays.copyOf(freeList.addresses, freeList.size * 2);
+        }
+        freeList.addresses[freeList.size++] = address;
+    }
+
+    private ByteBuffer chunkOf(long address) { //The upper half of an address is the index of its chunk.
+        return chunks[(int) (address >>> 32)];
+    }
+
+    private static int offsetOf(long address) { //The lower half is the offset of the record within its chunk.
+        return (int) address;
+    }
+
+    private static int recordSize(int numberOfWords) {
+        return COUNTS_SIZE + numberOfWords * 8;
+    }
+}
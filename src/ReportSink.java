@@ -0,0 +1,254 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+public class ReportSink implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer out; //Null for a sink that keeps its output in memory.
+    private final FileChannel file; //The channel of the output file, null unless the sink was opened on a file.
+    private final boolean dropTrailingNewLine;
+    private char[] buffer;
+    private int position;
+
+    /**
+     * Constructs a ReportSink that buffers the output and writes it to the given writer in large chunks.
+     *
+     * @param out                 The writer the output is written to.
+     * @param dropTrailingNewLine If true, the newline at the very end of the output is not written.
+     */
+    public ReportSink(Writer out, boolean dropTrailingNewLine) {
+        this(out, null, dropTrailingNewLine);
+    }
+
+    private ReportSink(Writer out, FileChannel file, boolean dropTrailingNewLine) {
+        this.out = out;
+        this.file = file;
+        this.dropTrailingNewLine = dropTrailingNewLine;
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    private ReportSink(int capacity) {
+        this.out = null;
+        this.file = null;
+        this.dropTrailingNewLine = false;
+        this.buffer = new char[capacity];
+    }
+
+    /**
+     * Opens the output file at the given path, truncating it if it exists. The file is written with the
+     * platform's default charset, as FileWriter does, and without the newline after the last line.
+     *
+     * @param path Path to the output file.
+     * @return A ReportSink writing to the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static ReportSink open(String path) throws IOException {
+        return open(new FileOutputStream(path));
+    }
+
+    /**
+     * Opens the output file of a run that was interrupted, to continue it: the file is cut back to the output
+     * the run had written when it was last checkpointed, and the new output is appended to it.
+     *
+     * @param path              Path to the output file.
+     * @param length            The number of bytes of the file to be kept.
+     * @param hasPendingNewLine Whether the kept output is followed by a newline that had not been written yet.
+     * @return A ReportSink appending to the file.
+     * @throws IOException If the file cannot be opened or is shorter than the output to be kept.
+     */
+    public static ReportSink resume(String path, long length, boolean hasPendingNewLine) throws IOException {
+        FileOutputStream stream = new FileOutputStream(path, true);
+        if (stream.getChannel().size() < length) {
+            stream.close();
+            throw new IOException("The output file " + path + " is shorter than the output of the run to be resumed");
+        }
+        stream.getChannel().truncate(length);
+        ReportSink sink = open(stream);
+        if (hasPendingNewLine) {
+            sink.write('\n');
+        }
+        return sink;
+    }
+
+    private static ReportSink open(FileOutputStream stream) {
+        return new ReportSink(new OutputStreamWriter(new BufferedOutputStream(stream, BUFFER_SIZE)), stream.getChannel(), true);
+    }
+
+    /**
+     * Creates a ReportSink that keeps its output in memory; the output can be taken with toString().
+     *
+     * @return An in-memory ReportSink.
+     */
+    public static ReportSink inMemory() {
+        return new ReportSink(256);
+    }
+
+    /**
+     * Appends a string to the output.
+     *
+     * @param text The string to be appended.
+     * @throws IOException If an I/O error occurs while writing to the underlying writer.
+     */
+    public void write(String text) throws IOException {
+        int length = text.length();
+        if (position + length > buffer.length) {
+            makeRoom(length);
+        }
+        int start = 0;
+        while (length - start > buffer.length - position) { //Only a string larger than the whole buffer is copied in pieces.
+            int end = start + buffer.length - position;
+            text.getChars(start, end, buffer, position);
+            position = buffer.length;
+            start = end;
+            makeRoom(length - start);
+        }
+        text.getChars(start, length, buffer, position);
+        position += length - start;
+    }
+
+    /**
+     * Appends a single character to the output.
+     *
+     * @param c The character to be appended.
+     * @throws IOException If an I/O error occurs while writing to the underlying writer.
+     */
+    public void write(char c) throws IOException {
+        if (position == buffer.length) {
+            makeRoom(1);
+        }
+        buffer[position++] = c;
+    }
+
+    /**
+     * Appends a range of characters to the output.
+     *
+     * @param chars  The characters.
+     * @param offset The index of the first character to be appended.
+     * @param length The number of characters to be appended.
+     * @throws IOException If an I/O error occurs while writing to the underlying writer.
+     */
+    public void write(char[] chars, int offset, int length) throws IOException {
+        if (position + length > buffer.length) {
+            makeRoom(length);
+        }
+        while (length > buffer.length - position) {
+            int count = buffer.length - position;
+            System.arraycopy(chars, offset, buffer, position, count);
+            position = buffer.length;
+            offset += count;
+            length -= count;
+            makeRoom(length);
+        }
+        System.arraycopy(chars, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Appends a range of the output of an in-memory sink to the output.
+     *
+     * @param source The in-memory sink whose output is copied.
+     * @param start  The index of the first character to be appended.
+     * @param end    The index after the last character to be appended.
+     * @throws IOException If an I/O error occurs while writing to the underlying writer.
+     */
+    public void write(ReportSink source, int start, int end) throws IOException {
+        write(source.buffer, start, end - start);
+    }
+
+    /**
+     * Returns the number of characters buffered, which is the length of the output for an in-memory sink.
+     *
+     * @return The number of characters buffered.
+     */
+    public int length() {
+        return position;
+    }
+
+    /**
+     * Writes the buffered output to the underlying writer and flushes it. A trailing newline is held back
+     * until more output follows if it is going to be dropped at the end.
+     *
+     * @throws IOException If an I/O error occurs while writing to the underlying writer.
+     */
+    public void flush() throws IOException {
+        if (out != null) {
+            drain();
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes the buffered output as flush() does and forces the output file to the disk. Only a trailing newline
+     * that is held back, if any, is left in the buffer.
+     *
+     * @return The length of the output file in bytes, or -1 if the sink does not write to a file.
+     * @throws IOException If an I/O error occurs while writing to the output file.
+     */
+    public long sync() throws IOException {
+        flush();
+        if (file == null) {
+            return -1;
+        }
+        file.force(false);
+        return file.size();
+    }
+
+    /**
+     * Writes the remaining output, drops the trailing newline if requested and closes the underlying writer.
+     *
+     * @throws IOException If an I/O error occurs while writing to the underlying writer.
+     */
+    @Override
+    public void close() throws IOException {
+        if (out == null) {
+            return;
+        }
+        if (dropTrailingNewLine && position > 0 && buffer[position - 1] == '\n') {
+            position--;
+        }
+        out.write(buffer, 0, position);
+        position = 0;
+        out.close();
+    }
+
+    /**
+     * Discards the output of an in-memory sink so that it can be reused.
+     */
+    public void reset() {
+        position = 0;
+    }
+
+    /**
+     * Returns the output of an in-memory sink, or the output that has not been written out yet otherwise.
+     *
+     * @return The buffered output as a string.
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, position);
+    }
+
+    private void makeRoom(int length) throws IOException { //Grows an in-memory buffer, or writes the buffered output out.
+        if (out == null) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            return;
+        }
+        drain();
+    }
+
+    private void drain() throws IOException {
+        int count = position;
+        if (dropTrailingNewLine && count > 0 && buffer[count - 1] == '\n') {
+            count--; //The last newline stays in the buffer in case it turns out to be the end of the output.
+        }
+        out.write(buffer, 0, count);
+        System.arraycopy(buffer, count, buffer, 0, position - count);
+        position -= count;
+    }
+}
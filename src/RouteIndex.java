@@ -0,0 +1,161 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+public class RouteIndex {
+    private final Map<String, Integer> cityIDs = new HashMap<String, Integer>(); //Every city name is given a small int ID once.
+    private final List<String> cityNames = new ArrayList<String>();
+    private final Map<Long, Route> routes = new HashMap<Long, Route>(); //Keyed by the IDs of the two cities.
+
+    /**
+     * The voyages of one route, sorted by their IDs.
+     */
+    private static final class Route {
+        int[] voyageIDs = new int[4];
+        Voyage[] voyages = new Voyage[4]; //Kept next to the IDs so that a search does not look the voyages up again.
+        int size;
+    }
+
+    /**
+     * Returns the ID of the given city, giving it a new ID if it has none yet.
+     *
+     * @param city The name of the city.
+     * @return The ID of the city, starting from 0.
+     */
+    public int intern(String city) {
+        Integer cityID = cityIDs.get(city);
+        if (cityID == null) {
+            cityID = cityNames.size();
+            cityIDs.put(city, cityID);
+            cityNames.add(city);
+        }
+        return cityID;
+    }
+
+    /**
+     * Returns the ID of the given city.
+     *
+     * @param city The name of the city.
+     * @return The ID of the city, or -1 if no voyage has ever gone from or to that city.
+     */
+    public int cityID(String city) {
+        Integer cityID = cityIDs.get(city);
+        return cityID == null ? -1 : cityID;
+    }
+
+    /**
+     * Returns the name of the city with the given ID.
+     *
+     * @param cityID The ID of the city.
+     * @return The name of the city.
+     */
+    public String cityName(int cityID) {
+        return cityNames.get(cityID);
+    }
+
+    /**
+     * Returns the number of cities that have an ID.
+     *
+     * @return The number of cities.
+     */
+    public int getNumberOfCities() {
+        return cityNames.size();
+    }
+
+    /**
+     * Adds a voyage to the voyages of its route.
+     *
+     * @param voyage The voyage to be added.
+     */
+    public void add(Voyage voyage) {
+        long key = key(intern(voyage.getFrom()), intern(voyage.getTo()));
+        Route route = routes.get(key);
+        if (route == null) {
+            route = new Route();
+            routes.put(key, route);
+        }
+        if (route.size == route.voyageIDs.length) {
+            route.voyageIDs = Arrays.copyOf(route.voyageIDs, route.size * 2);
+            route.voyages = Arrays.copyOf(route.voyages, route.size * 2);
+        }
+
+        //Voyages usually arrive in increasing ID order, so the new one mostly goes to the end without shifting anything.
+        int position = route.size;
+        if (position > 0 && route.voyageIDs[position - 1] > voyage.getVoyageID()) {
+            position = -Arrays.binarySearch(route.voyageIDs, 0, route.size, voyage.getVoyageID()) - 1;
+            System.arraycopy(route.voyageIDs, position, route.voyageIDs, position + 1, route.size - position);
+            System.arraycopy(route.voyages, position, route.voyages, position + 1, route.size - position);
+        }
+        route.voyageIDs[position] = voyage.getVoyageID();
+        route.voyages[position] = voyage;
+        route.size++;
+    }
+
+    /**
+     * Removes a voyage from the voyages of its route.
+     *
+     * @param voyage The voyage to be removed.
+     */
+    public void remove(Voyage voyage) {
+        Route route = find(cityID(voyage.getFrom()), cityID(voyage.getTo()));
+        if (route == null) {
+            return;
+        }
+        int position = Arrays.binarySearch(route.voyageIDs, 0, route.size, voyage.getVoyageID());
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(route.voyageIDs, position + 1, route.voyageIDs, position, route.size - position - 1);
+        System.arraycopy(route.voyages, position + 1, route.voyages, position, route.size - position - 1);
+        route.size--;
+        route.voyages[route.size] = null;
+    }
+
+    /**
+     * Returns the voyages from one city to another in increasing ID order. The index must not be changed while
+     * the result is iterated.
+     *
+     * @param from The city the voyages depart from.
+     * @param to   The city the voyages arrive at.
+     * @return The voyages of the route, none if there are no such voyages.
+     */
+    public Iterable<Voyage> find(String from, String to) {
+        final Route route = find(cityID(from), cityID(to));
+        return new Iterable<Voyage>() {
+            @Override
+            public Iterator<Voyage> iterator() {
+                return new Iterator<Voyage>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return route != null && index < route.size;
+                    }
+
+                    @Override
+                    public Voyage next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return route.voyages[index++];
+                    }
+                };
+            }
+        };
+    }
+
+    private Route find(int fromID, int toID) {
+        if (fromID < 0 || toID < 0) { //A city without an ID has no voyages.
+            return null;
+        }
+        return routes.get(key(fromID, toID));
+    }
+
+    private static long key(int fromID, int toID) {
+        return ((long) fromID << 32) | toID;
+    }
+}
@@ -0,0 +1,128 @@
+public final class SeatLayout {
+    public static final SeatLayout STANDARD = new SeatLayout(4, 2, 0, true); //2+2 regular seats per row.
+    public static final SeatLayout PREMIUM = new SeatLayout(3, 1, 0b1, true); //One premium seat, the aisle and two regular seats per row.
+    public static final SeatLayout MINIBUS = new SeatLayout(2, 0, 0, false); //Two regular seats per row without an aisle; tickets are not refundable.
+
+    private final int seatsPerRow;
+    private final int aisleAfter;
+    private final int premiumColumns;
+    private final boolean isRefundable;
+    private final long[] premiumWordMasks; //Premium seat bits of consecutive bitset words, repeating with the period of the array length.
+    private final long[] pairWordMasks; //Bits of the seats that have a neighbour on their right, on the same side of the aisle.
+
+    /**
+     * Constructs a SeatLayout describing one row of seats.
+     *
+     * @param seatsPerRow    The number of seats in a row.
+     * @param aisleAfter     The column after which the aisle is printed, or 0 if the row has no aisle.
+     * @param premiumColumns A mask whose bit (column - 1) is set if the seats in that column are premium seats.
+     * @param isRefundable   Whether the tickets of such a voyage can be refunded.
+     */
+    public SeatLayout(int seatsPerRow, int aisleAfter, int premiumColumns, boolean isRefundable) {
+        this.seatsPerRow = seatsPerRow;
+        this.aisleAfter = aisleAfter;
+        this.premiumColumns = premiumColumns;
+        this.isRefundable = isRefundable;
+        this.premiumWordMasks = wordMasks(premiumColumns);
+
+        int pairColumns = 0;
+        for (int column = 1; column < seatsPerRow; column++) {
+            if (column != aisleAfter) {
+                pairColumns |= 1 << (column - 1);
+            }
+        }
+        this.pairWordMasks = wordMasks(pairColumns);
+    }
+
+    public int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    public int getAisleAfter() {
+        return aisleAfter;
+    }
+
+    public boolean hasPremiumSeats() {
+        return premiumColumns != 0;
+    }
+
+    public int getPremiumSeatsPerRow() {
+        return Integer.bitCount(premiumColumns);
+    }
+
+    public boolean isRefundable() {
+        return isRefundable;
+    }
+
+    /**
+     * Returns the row of the given seat.
+     *
+     * @param seatNumber The seat number, starting from 1.
+     * @return The row, starting from 1.
+     */
+    public int getRow(int seatNumber) {
+        return (seatNumber - 1) / seatsPerRow + 1;
+    }
+
+    /**
+     * Returns the column of the given seat within its row.
+     *
+     * @param seatNumber The seat number, starting from 1.
+     * @return The column, starting from 1.
+     */
+    public int getColumn(int seatNumber) {
+        return (seatNumber - 1) % seatsPerRow + 1;
+    }
+
+    /**
+     * Checks whether the seat at the given zero-based index is a premium seat.
+     *
+     * @param seatIndex The zero-based seat index, that is the seat number minus one.
+     * @return True if the seat is a premium seat, false otherwise.
+     */
+    public boolean isPremium(int seatIndex) {
+        return (premiumColumns & (1 << (seatIndex % seatsPerRow))) != 0;
+    }
+
+    /**
+     * Returns the mask of the premium seats within the given word of a seat bitset.
+     *
+     * @param wordIndex The index of the word in the bitset.
+     * @return A mask whose set bits are premium seats.
+     */
+    public long premiumMask(int wordIndex) {
+        return premiumWordMasks[wordIndex % premiumWordMasks.length];
+    }
+
+    /**
+     * Returns the mask of the seats within the given word of a seat bitset that form an adjacent pair with the
+     * seat after them, that is the next seat in the same row when no aisle lies between them.
+     *
+     * @param wordIndex The index of the word in the bitset.
+     * @return A mask whose set bits are the first seats of pairs.
+     */
+    public long pairMask(int wordIndex) {
+        return pairWordMasks[wordIndex % pairWordMasks.length];
+    }
+
+    private long[] wordMasks(int columns) {
+        //A column pattern repeats every seatsPerRow bits, so it lines up with the 64 bit words again after seatsPerRow / gcd(seatsPerRow, 64) words.
+        int period = seatsPerRow / gcd(seatsPerRow, Long.SIZE);
+        long[] masks = new long[period];
+        for (int bit = 0; bit < period * Long.SIZE; bit++) {
+            if ((columns & (1 << (bit % seatsPerRow))) != 0) {
+                masks[bit / Long.SIZE] |= 1L << bit;
+            }
+        }
+        return masks;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+}
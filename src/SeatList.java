@@ -0,0 +1,180 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+public class SeatList {
+    public static final int VALID = 0;
+    public static final int DUPLICATE = 1; //A seat is given more than once.
+    public static final int NOT_POSITIVE = 2; //A seat number is less than 1.
+    public static final int NO_SUCH_SEAT = 3; //A seat number is greater than the number of seats.
+    public static final int UNAVAILABLE = 4; //A seat is already sold when selling, or already empty when refunding.
+
+    private int[] seats = new int[16];
+    private int count;
+    private long[] seen = new long[4]; //Scratch bitset of the seats met so far, cleared again after every check.
+    private long[] duplicated = new long[4];
+    private int problemSeat;
+
+    /**
+     * Parses an underscore separated seat list, such as "3_4_10", into seat numbers. The list is split the way
+     * String.split("_") splits it and every token must be accepted by Integer.parseInt. An error is written for
+     * every token that is not, without a newline, as the commands have always reported it.
+     *
+     * @param line   The command line.
+     * @param field  The index of the seat list field of the command.
+     * @param writer The ReportSink the output is written into.
+     * @return True if every token is an int, false otherwise.
+     * @throws IOException If an I/O error occurs while writing to the output file.
+     */
+    public boolean parse(CommandLine line, int field, ReportSink writer) throws IOException {
+        count = 0;
+        char[] list = line.chars(); //The tokens are parsed where they are, in the characters of the line.
+        int listStart = line.fieldStart(field);
+        int listEnd = line.fieldEnd(field);
+        int end = listEnd;
+        while (end > listStart && list[end - 1] == '_') { //Trailing empty tokens are dropped, as String.split does.
+            end--;
+        }
+        if (end == listStart && listEnd > listStart) {
+            return true;
+        }
+
+        boolean isValid = true;
+        int start = listStart;
+        while (start <= end) {
+            int separator = start;
+            while (separator < end && list[separator] != '_') {
+                separator++;
+            }
+            long seatNumber = NumberParser.parseInt(list, start, separator);
+            if (seatNumber == NumberParser.INVALID) {
+                isValid = false;
+                writer.write("ERROR: " + new String(list, start, separator - start) + " is not a positive integer, seat number must be a positive integer!");
+            } else if (isValid) {
+                add((int) seatNumber);
+            }
+            start = separator + 1;
+        }
+        return isValid;
+    }
+
+    /**
+     * Checks the parsed seats against a seat map in a single pass. A duplicate anywhere in the list takes
+     * precedence; otherwise the first seat that is out of range or unavailable is reported. The seat in question
+     * can be taken with getProblemSeat().
+     *
+     * @param seatMap        The seat map of the voyage.
+     * @param mustBeOccupied True if the seats must be sold (refunding), false if they must be empty (selling).
+     * @return VALID, or the kind of the problem found.
+     */
+    public int check(SeatMap seatMap, boolean mustBeOccupied) {
+        int numberOfSeats = seatMap.getNumberOfSeats();
+        int words = (numberOfSeats + Long.SIZE - 1) / Long.SIZE;
+        if (seen.length < words) {
+            seen = new long[words];
+            duplicated = new long[words];
+        }
+
+        boolean hasDuplicate = false;
+        boolean hasOutOfRange = false;
+        int firstProblem = VALID;
+        int firstProblemSeat = 0;
+
+        for (int i = 0; i < count; i++) {
+            int seatNumber = seats[i];
+            int problem = VALID;
+            if (seatNumber < 1) {
+                problem = NOT_POSITIVE;
+                hasOutOfRange = true;
+            } else if (seatNumber > numberOfSeats) {
+                problem = NO_SUCH_SEAT;
+                hasOutOfRange = true;
+            } else {
+                int index = seatNumber - 1;
+                long bit = 1L << index;
+                if ((seen[index >>> 6] & bit) != 0) {
+                    duplicated[index >>> 6] |= bit;
+                    hasDuplicate = true;
+                }
+                seen[index >>> 6] |= bit;
+                if (seatMap.isOccupied(seatNumber) != mustBeOccupied) {
+                    problem = UNAVAILABLE;
+                }
+            }
+            if (problem != VALID && firstProblem == VALID) {
+                firstProblem = problem;
+                firstProblemSeat = seatNumber;
+            }
+        }
+
+        int result = firstProblem;
+        problemSeat = firstProblemSeat;
+        if (hasDuplicate || hasOutOfRange) {
+            int duplicateIndex = firstDuplicateIndex(numberOfSeats, hasOutOfRange);
+            if (duplicateIndex >= 0) {
+                result = DUPLICATE;
+                problemSeat = seats[duplicateIndex];
+            }
+        }
+
+        for (int i = 0; i < count; i++) { //Only the words that were touched are cleared.
+            int seatNumber = seats[i];
+            if (seatNumber >= 1 && seatNumber <= numberOfSeats) {
+                seen[(seatNumber - 1) >>> 6] = 0;
+                duplicated[(seatNumber - 1) >>> 6] = 0;
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int get(int index) {
+        return seats[index];
+    }
+
+    public int getProblemSeat() {
+        return problemSeat;
+    }
+
+    private void add(int seatNumber) {
+        if (count == seats.length) {
+            seats = Arrays.copyOf(seats, count * 2);
+        }
+        seats[count++] = seatNumber;
+    }
+
+    private int firstDuplicateIndex(int numberOfSeats, boolean hasOutOfRange) {
+        //Seats outside the seat map are not in the bitset, so their duplicates are found by sorting them; this only
+        // happens on the error path.
+        int[] outOfRange = null;
+        if (hasOutOfRange) {
+            int outOfRangeCount = 0;
+            outOfRange = new int[count];
+            for (int i = 0; i < count; i++) {
+                if (seats[i] < 1 || seats[i] > numberOfSeats) {
+                    outOfRange[outOfRangeCount++] = seats[i];
+                }
+            }
+            outOfRange = Arrays.copyOf(outOfRange, outOfRangeCount);
+            Arrays.sort(outOfRange);
+        }
+
+        for (int i = 0; i < count; i++) { //The reported seat is the first one in the list that occurs more than once.
+            int seatNumber = seats[i];
+            if (seatNumber >= 1 && seatNumber <= numberOfSeats) {
+                if ((duplicated[(seatNumber - 1) >>> 6] & (1L << (seatNumber - 1))) != 0) {
+                    return i;
+                }
+            } else {
+                int position = Arrays.binarySearch(outOfRange, seatNumber);
+                if ((position > 0 && outOfRange[position - 1] == seatNumber)
+                        || (position + 1 < outOfRange.length && outOfRange[position + 1] == seatNumber)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,333 @@
+import java.io.IOException;
+
+public abstract class SeatMap { //One occupancy bit per seat in 64 bit words, stored where the subclass keeps them.
+    private final SeatLayout layout;
+    private final int numberOfRows;
+    private final int numberOfSeats;
+
+    /**
+     * Constructs a SeatMap in which every seat is empty. No storage is taken for the seats until one of them is
+     * sold, as many voyages are cancelled or never sold at all.
+     *
+     * @param layout       The layout of a row of seats.
+     * @param numberOfRows The number of seat rows.
+     */
+    protected SeatMap(SeatLayout layout, int numberOfRows) {
+        this.layout = layout;
+        this.numberOfRows = numberOfRows;
+        this.numberOfSeats = numberOfRows * layout.getSeatsPerRow();
+    }
+
+    public SeatLayout getLayout() {
+        return layout;
+    }
+
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    public int getNumberOfSeats() {
+        return numberOfSeats;
+    }
+
+    /**
+     * Checks whether the given seat is sold.
+     *
+     * @param seatNumber The seat number, starting from 1.
+     * @return True if the seat is sold, false otherwise.
+     */
+    public boolean isOccupied(int seatNumber) {
+        int index = seatNumber - 1;
+        return (getWord(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Checks whether the seat map holds the occupancy of its seats, which it does once a seat has been sold.
+     *
+     * @return True if a seat has ever been sold, false if every seat is still empty.
+     */
+    public abstract boolean isMaterialized();
+
+    /**
+     * Checks whether the given seat is a premium seat.
+     *
+     * @param seatNumber The seat number, starting from 1.
+     * @return True if the seat is a premium seat, false otherwise.
+     */
+    public boolean isPremium(int seatNumber) {
+        return layout.isPremium(seatNumber - 1);
+    }
+
+    /**
+     * Marks the given seat as sold.
+     *
+     * @param seatNumber The seat number, starting from 1.
+     */
+    public void occupy(int seatNumber) {
+        int index = seatNumber - 1;
+        long word = getWord(index >>> 6);
+        if ((word & (1L << index)) == 0) {
+            putWord(index >>> 6, word | (1L << index));
+            if (layout.isPremium(index)) {
+                addOccupied(0, 1);
+            } else {
+                addOccupied(1, 0);
+            }
+        }
+    }
+
+    /**
+     * Marks the given seat as empty.
+     *
+     * @param seatNumber The seat number, starting from 1.
+     */
+    public void release(int seatNumber) {
+        int index = seatNumber - 1;
+        long word = getWord(index >>> 6);
+        if ((word & (1L << index)) != 0) {
+            putWord(index >>> 6, word & ~(1L << index));
+            if (layout.isPremium(index)) {
+                addOccupied(0, -1);
+            } else {
+                addOccupied(-1, 0);
+            }
+        }
+    }
+
+    public int getNumberOfWords() {
+        return (numberOfSeats + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Returns 64 occupancy bits of the seat map, bit i of word w being set if seat 64 * w + i + 1 is sold.
+     *
+     * @param wordIndex The index of the word.
+     * @return The occupancy bits.
+     */
+    public abstract long getWord(int wordIndex);
+
+    /**
+     * Stores 64 occupancy bits of the seat map, taking the storage of the seats first if it has none yet. The
+     * counts of sold seats are left to addOccupied.
+     *
+     * @param wordIndex The index of the word.
+     * @param word      The occupancy bits.
+     */
+    protected abstract void putWord(int wordIndex, long word);
+
+    /**
+     * Adds to the running counts of sold seats.
+     *
+     * @param regularSeats The change in the number of sold regular seats.
+     * @param premiumSeats The change in the number of sold premium seats.
+     */
+    protected abstract void addOccupied(int regularSeats, int premiumSeats);
+
+    /**
+     * Gives the storage of the seats back once the voyage is removed; the seat map must not be used afterwards.
+     */
+    public abstract void free();
+
+    /**
+     * Replaces 64 occupancy bits of the seat map, as returned by getWord(), and updates the counts of sold seats.
+     * Bits past the last seat are ignored.
+     *
+     * @param wordIndex The index of the word.
+     * @param word      The occupancy bits.
+     */
+    public void setWord(int wordIndex, long word) {
+        int seatsInWord = Math.min(Long.SIZE, numberOfSeats - wordIndex * Long.SIZE);
+        if (seatsInWord < Long.SIZE) {
+            word &= (1L << seatsInWord) - 1;
+        }
+        long previous = getWord(wordIndex);
+        if (word == previous) { //An empty word also leaves a seat map without storage as it is.
+            return;
+        }
+        long premiumMask = layout.premiumMask(wordIndex);
+        putWord(wordIndex, word);
+        addOccupied(Long.bitCount(word & ~premiumMask) - Long.bitCount(previous & ~premiumMask),
+                Long.bitCount(word & premiumMask) - Long.bitCount(previous & premiumMask));
+    }
+
+    /**
+     * Finds the first free seats of the given kind, in seat number order. The occupancy bitset is scanned a word
+     * at a time, so full stretches of the voyage are skipped without looking at their seats one by one.
+     *
+     * @param preference The kind of seats to be found. PAIR finds pairs of adjacent seats in the same row that
+     *                   are not separated by the aisle; a seat belongs to at most one of the pairs.
+     * @param count      The number of seats to be found, or the number of pairs for PAIR.
+     * @param seats      The array the seat numbers are stored into; for PAIR both seats of every pair are stored.
+     *                   It must have room for all of them, or for every seat of the map.
+     * @return The number of seat numbers stored, which is less than requested if there are not enough free seats.
+     */
+    public int findFreeSeats(SeatPreference preference, int count, int[] seats) {
+        boolean isPair = preference == SeatPreference.PAIR;
+        long wanted = isPair ? 2L * count : count;
+        int found = 0;
+        long taken = 0; //The first bit of the word, if it is already the second seat of a pair found in the previous word.
+
+        int numberOfWords = getNumberOfWords();
+        for (int wordIndex = 0; wordIndex < numberOfWords && found < wanted; wordIndex++) {
+            long free = freeSeats(wordIndex);
+            long candidates;
+            if (preference == SeatPreference.PREMIUM) {
+                candidates = free & layout.premiumMask(wordIndex);
+            } else if (preference == SeatPreference.REGULAR) {
+                candidates = free & ~layout.premiumMask(wordIndex);
+            } else if (isPair) {
+                //A pair may start at the last bit of a word and end at the first bit of the next one.
+                long nextFree = wordIndex + 1 < numberOfWords ? freeSeats(wordIndex + 1) : 0;
+                candidates = free & ~taken & ((free >>> 1) | (nextFree << 63)) & layout.pairMask(wordIndex);
+            } else {
+                candidates = free;
+            }
+
+            taken = 0;
+            while (candidates != 0 && found < wanted) {
+                int bit = Long.numberOfTrailingZeros(candidates);
+                int seatNumber = wordIndex * Long.SIZE + bit + 1;
+                seats[found++] = seatNumber;
+                if (isPair) {
+                    seats[found++] = seatNumber + 1;
+                    candidates &= ~(3L << bit); //The second seat cannot start another pair.
+                    taken = bit == Long.SIZE - 1 ? 1 : 0;
+                } else {
+                    candidates &= candidates - 1;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the number of sold seats.
+     *
+     * @return The number of sold seats.
+     */
+    public int countOccupied() {
+        return countOccupiedRegular() + countOccupiedPremium();
+    }
+
+    /**
+     * Returns the number of sold regular seats.
+     *
+     * @return The number of sold regular seats.
+     */
+    public abstract int countOccupiedRegular();
+
+    /**
+     * Returns the number of sold premium seats.
+     *
+     * @return The number of sold premium seats.
+     */
+    public abstract int countOccupiedPremium();
+
+    /**
+     * Returns the number of empty regular seats.
+     *
+     * @return The number of empty regular seats.
+     */
+    public int countFreeRegular() {
+        return numberOfSeats - numberOfRows * layout.getPremiumSeatsPerRow() - countOccupiedRegular();
+    }
+
+    /**
+     * Returns the number of empty premium seats.
+     *
+     * @return The number of empty premium seats.
+     */
+    public int countFreePremium() {
+        return numberOfRows * layout.getPremiumSeatsPerRow() - countOccupiedPremium();
+    }
+
+    /**
+     * Returns the total price of the sold seats, bit for bit the sum of their prices in seat number order, which is
+     * the order the revenue has always been computed in. It comes from the running counts in constant time when the
+     * prices are such that no partial sum is rounded, and the sold seats are summed up otherwise.
+     *
+     * @param regularSeatPrice The price of a regular seat.
+     * @param premiumSeatPrice The price of a premium seat.
+     * @return The total price of the sold seats.
+     */
+    public double occupiedFee(double regularSeatPrice, double premiumSeatPrice) {
+        double fee = 0; //Starting from 0 as the sum does keeps a zero fee positive, whatever the signs of the prices.
+        if (isSumExact(regularSeatPrice, premiumSeatPrice)) {
+            return fee + countOccupiedRegular() * regularSeatPrice + countOccupiedPremium() * premiumSeatPrice;
+        }
+        for (int i = 0; i < getNumberOfWords(); i++) {
+            long word = getWord(i);
+            long premium = word & layout.premiumMask(i);
+            while (word != 0) { //Only the set bits are visited.
+                long lowest = word & -word;
+                fee += (premium & lowest) != 0 ? premiumSeatPrice : regularSeatPrice;
+                word ^= lowest;
+            }
+        }
+        return fee;
+    }
+
+    private boolean isSumExact(double regularSeatPrice, double premiumSeatPrice) {
+        double largest = numberOfSeats * Math.max(Math.abs(regularSeatPrice), Math.abs(premiumSeatPrice));
+        if ((largest < Double.POSITIVE_INFINITY) == false) {
+            return false; //An infinite or NaN price is summed up seat by seat.
+        }
+        //Both prices are multiples of 2^lowest, so every sum of them below 2^(lowest + 53) is exact, whatever the order.
+        int lowest = Math.min(lowestBit(regularSeatPrice), lowestBit(premiumSeatPrice));
+        return largest == 0 || Math.getExponent(largest) < lowest + 52;
+    }
+
+    private static int lowestBit(double value) { //The exponent of the lowest set bit of a finite value.
+        if (value == 0) {
+            return Integer.MAX_VALUE - 64;
+        }
+        long bits = Double.doubleToRawLongBits(value);
+        int exponent = (int) (bits >>> 52) & 0x7FF;
+        long mantissa = bits & 0xFFFFFFFFFFFFFL;
+        if (exponent == 0) { //A subnormal value has no implicit leading bit.
+            return -1074 + Long.numberOfTrailingZeros(mantissa);
+        }
+        return exponent - 1075 + Long.numberOfTrailingZeros(mantissa | 1L << 52);
+    }
+
+    private long freeSeats(int wordIndex) { //The free seats of a word, without the bits past the last seat.
+        long free = ~getWord(wordIndex);
+        int seatsInWord = numberOfSeats - wordIndex * Long.SIZE;
+        return seatsInWord < Long.SIZE ? free & ((1L << seatsInWord) - 1) : free;
+    }
+
+    /**
+     * Writes the seat plan row by row, "X" for a sold seat and "*" for an empty one, with the aisle shown as "|".
+     * A seat map in which no seat has been sold repeats a single row of empty seats.
+     *
+     * @param writer The ReportSink the output is written into.
+     * @throws IOException If an I/O error occurs while writing to the output file.
+     */
+    public void render(ReportSink writer) throws IOException {
+        int seatsPerRow = layout.getSeatsPerRow();
+        int aisleAfter = layout.getAisleAfter();
+        char[] row = new char[seatsPerRow * 2 + 2];
+        int seatNumber = 1;
+        int length = 0;
+
+        for (int i = 0; i < numberOfRows; i++) {
+            if (i > 0 && isMaterialized() == false) { //Every row is the empty row written first.
+                writer.write(row, 0, length);
+                continue;
+            }
+            length = 0;
+            for (int column = 1; column <= seatsPerRow; column++) {
+                row[length++] = isOccupied(seatNumber++) ? 'X' : '*';
+                if (column != seatsPerRow) {
+                    row[length++] = ' ';
+                }
+                if (column == aisleAfter) {
+                    row[length++] = '|';
+                    row[length++] = ' ';
+                }
+            }
+            row[length++] = '\n';
+            writer.write(row, 0, length);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+public enum SeatPreference {
+    ANY("seats"),
+    PREMIUM("premium seats"),
+    REGULAR("regular seats"),
+    PAIR("seat pairs"); //Two adjacent seats in the same row, on the same side of the aisle.
+
+    private final String description;
+
+    SeatPreference(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Returns the kind of seats as it is written in the messages, such as "premium seats".
+     *
+     * @return The description of the kind of seats.
+     */
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,37 @@
+import java.io.IOException;
+
+public interface SeatStore {
+    /**
+     * Keeps the seats of every voyage in arrays on the heap.
+     */
+    SeatStore HEAP = new SeatStore() {
+        @Override
+        public SeatMap newSeatMap(SeatLayout layout, int numberOfRows) {
+            return new HeapSeatMap(layout, numberOfRows);
+        }
+
+        @Override
+        public boolean makeRoom(Voyage voyage) {
+            return true;
+        }
+    };
+
+    /**
+     * Creates the seat map of a new voyage, in which every seat is empty.
+     *
+     * @param layout       The layout of a row of seats.
+     * @param numberOfRows The number of seat rows.
+     * @return The seat map.
+     */
+    SeatMap newSeatMap(SeatLayout layout, int numberOfRows);
+
+    /**
+     * Makes room for the seats of a new voyage before it is registered, so that a voyage that cannot be kept is
+     * reported as an error of its command instead of failing once it is registered.
+     *
+     * @param voyage The voyage to be registered, with the seat plan this store has created for it.
+     * @return True if the seats of the voyage can be kept in the store, false otherwise.
+     * @throws IOException If an I/O error occurs while making room.
+     */
+    boolean makeRoom(Voyage voyage) throws IOException;
+}
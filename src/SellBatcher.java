@@ -0,0 +1,171 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+public class SellBatcher {
+    private static final int DEFAULT_MAX_BATCH = 64;
+
+    private final ConcurrentBookingEngine engine;
+    private final ConcurrentHashMap<Integer, Lane> lanes = new ConcurrentHashMap<Integer, Lane>(); //Only the voyages with waiting requests have one.
+    private final int maxBatch;
+    private final long windowNanos;
+
+    /**
+     * A command waiting to be executed, together with the thread that waits for its output.
+     */
+    private static final class Request {
+        final CommandLine line;
+        final ReportSink writer = ReportSink.inMemory();
+        final Thread waiter = Thread.currentThread();
+        Exception failure;
+        volatile boolean isDone;
+
+        Request(CommandLine line) {
+            this.line = line;
+        }
+    }
+
+    /**
+     * The requests of a voyage, in the order they arrived. Whichever waiting thread sets isCombining first executes
+     * the requests of all the others as one batch.
+     */
+    private static final class Lane {
+        final ConcurrentLinkedQueue<Request> pending = new ConcurrentLinkedQueue<Request>();
+        final AtomicBoolean isCombining = new AtomicBoolean();
+    }
+
+    /**
+     * Constructs a SellBatcher that only batches the requests that are already waiting.
+     *
+     * @param engine The engine the commands are executed on.
+     */
+    public SellBatcher(ConcurrentBookingEngine engine) {
+        this(engine, DEFAULT_MAX_BATCH, 0);
+    }
+
+    /**
+     * Constructs a SellBatcher in front of the given engine.
+     *
+     * @param engine      The engine the commands are executed on.
+     * @param maxBatch    The largest number of commands executed as one batch.
+     * @param windowNanos How long a batch smaller than maxBatch waits for more requests before it is executed,
+     *                    0 for not waiting at all.
+     */
+    public SellBatcher(ConcurrentBookingEngine engine, int maxBatch, long windowNanos) {
+        if (maxBatch < 1 || windowNanos < 0) {
+            throw new IllegalArgumentException("A batch must hold at least one command and wait for no less than 0 ns.");
+        }
+        this.engine = engine;
+        this.maxBatch = maxBatch;
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * Executes a SELL_TICKET or REFUND_TICKET command and returns its output. The requests that arrive for the
+     * same voyage while another batch is being executed are executed together, under a single lock of the voyage,
+     * by one of the waiting threads, while the batches of different voyages run in parallel. Each of them is still
+     * validated, applied and reported on its own, in the order the requests arrived, so every caller gets exactly
+     * the output the command would have on its own in that order, or the exception its own command threw.
+     *
+     * @param fields The fields of the command line, the first one being the command name.
+     * @return The output of the command.
+     */
+    public String execute(String[] fields) {
+        CommandLine line = CommandLine.of(fields);
+        Command command = line.command();
+        long voyageID = line.length() > 1 ? line.parseInt(1) : NumberParser.INVALID;
+        if ((command != Command.SELL_TICKET && command != Command.REFUND_TICKET) || voyageID == NumberParser.INVALID) {
+            return engine.execute(fields); //A command whose voyage ID cannot be parsed only writes an error.
+        }
+
+        Request request = new Request(line);
+        Lane lane = laneOf((int) voyageID);
+        lane.pending.offer(request);
+        while (true) {
+            if (lane.isCombining.compareAndSet(false, true)) {
+                try {
+                    combine(lane);
+                } finally {
+                    lane.isCombining.set(false);
+                }
+                if (lane.pending.isEmpty()) {
+                    //A request offered to the lane after this check is still combined by its own thread, and a
+                    // request that arrives later takes a new lane.
+                    lanes.remove((int) voyageID, lane);
+                }
+                //A request that arrived just before the lane was released would be left waiting, so it is handed to
+                // its own thread, which combines it with whatever arrived after it.
+                Request next = lane.pending.peek();
+                if (next != null) {
+                    LockSupport.unpark(next.waiter);
+                }
+                if (request.isDone) {
+                    break;
+                }
+            } else if (request.isDone) {
+                break;
+            } else {
+                LockSupport.park(this);
+            }
+        }
+
+        if (request.failure instanceof RuntimeException) {
+            throw (RuntimeException) request.failure;
+        } else if (request.failure != null) { //An in-memory sink does not write to any file.
+            throw new IllegalStateException(request.failure);
+        }
+        return request.writer.toString();
+    }
+
+    private void combine(Lane lane) {
+        Request[] batch = new Request[Math.min(maxBatch, 8)];
+        int count = 0;
+        long deadline = windowNanos == 0 ? 0 : System.nanoTime() + windowNanos;
+        while (count < maxBatch) {
+            Request request = lane.pending.poll();
+            if (request != null) {
+                if (count == batch.length) {
+                    batch = Arrays.copyOf(batch, Math.min(maxBatch, count * 2));
+                }
+                batch[count++] = request;
+            } else if (windowNanos == 0 || System.nanoTime() - deadline >= 0) {
+                break;
+            } else {
+                Thread.yield(); //The other requests of the window are given a chance to arrive.
+            }
+        }
+
+        CommandLine[] lines = new CommandLine[count];
+        ReportSink[] writers = new ReportSink[count];
+        Exception[] failures = new Exception[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = batch[i].line;
+            writers[i] = batch[i].writer;
+        }
+        try {
+            engine.execute(lines, writers, failures, count);
+        } catch (RuntimeException e) { //Only the batch as a whole can fail here, so every request gets the failure.
+            Arrays.fill(failures, e);
+        }
+        for (int i = 0; i < count; i++) {
+            Request request = batch[i];
+            request.failure = failures[i];
+            request.isDone = true;
+            LockSupport.unpark(request.waiter);
+        }
+    }
+
+    private Lane laneOf(int voyageID) {
+        Lane lane = lanes.get(voyageID);
+        if (lane == null) {
+            Lane created = new Lane();
+            lane = lanes.putIfAbsent(voyageID, created);
+            if (lane == null) {
+                lane = created;
+            }
+        }
+        return lane;
+    }
+}
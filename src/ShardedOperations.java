@@ -0,0 +1,280 @@
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class ShardedOperations {
+    private static final int CHUNK_SIZE = 512; //Commands are handed over in chunks so that the queues are not touched for every command.
+    private static final int CHUNKS_PER_SHARD = 4; //Chunks in flight; the parser waits for a free one when all of them are in use.
+
+    private final int numberOfShards;
+    private final VoyageRegistry[] registries;
+    private final Thread[] workers;
+    private final BlockingQueue<Chunk>[] shardQueues;
+    private final BlockingQueue<Chunk> pending = new LinkedBlockingQueue<Chunk>(); //Chunks in command order, waiting to be written.
+    private final BlockingQueue<Chunk> free;
+    private final VoyageManagement reporter = new VoyageManagement(null); //Only writes the merged Z reports and searches, which take the registries themselves.
+
+    /**
+     * A run of consecutive commands, together with the output every shard produced for its share of them.
+     */
+    private static final class Chunk {
+        final CommandLine[] lines; //Copies of the command lines, reused by the next commands the chunk carries.
+        final int[] shardOf;
+        final int[] ends; //The end of the output of each command in the output of its shard.
+        final ReportSink[] outputs;
+        int count;
+        boolean isReport; //A Z report or a search, written by the writer once every command before it is done.
+        boolean isEcho = true; //Whether the command is echoed; the implicit Z report at the end is not.
+        boolean isLast;
+        CountDownLatch done;
+        volatile Throwable failure;
+
+        Chunk(int capacity, int numberOfShards) {
+            lines = new CommandLine[capacity];
+            for (int i = 0; i < capacity; i++) {
+                lines[i] = new CommandLine();
+            }
+            shardOf = new int[capacity];
+            ends = new int[capacity];
+            outputs = new ReportSink[numberOfShards];
+            for (int i = 0; i < numberOfShards; i++) {
+                outputs[i] = ReportSink.inMemory();
+            }
+        }
+    }
+
+    /**
+     * Constructs a ShardedOperations object that splits the voyages among the given number of shards.
+     *
+     * @param numberOfShards The number of shard worker threads.
+     */
+    public ShardedOperations(int numberOfShards) {
+        this(numberOfShards, SeatStore.HEAP);
+    }
+
+    /**
+     * Constructs a ShardedOperations object that splits the voyages among the given number of shards, which keep
+     * the seats of their voyages in the given store.
+     *
+     * @param numberOfShards The number of shard worker threads.
+     * @param seatStore      The store the seats of the voyages of every shard are kept in.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ShardedOperations(int numberOfShards, SeatStore seatStore) {
+        this.numberOfShards = numberOfShards;
+        this.registries = new VoyageRegistry[numberOfShards];
+        this.workers = new Thread[numberOfShards];
+        this.shardQueues = new BlockingQueue[numberOfShards];
+        this.free = new ArrayBlockingQueue<Chunk>(numberOfShards * CHUNKS_PER_SHARD);
+        for (int i = 0; i < numberOfShards * CHUNKS_PER_SHARD; i++) {
+            free.add(new Chunk(CHUNK_SIZE, numberOfShards));
+        }
+        for (int i = 0; i < numberOfShards; i++) {
+            registries[i] = new VoyageRegistry(seatStore);
+            shardQueues[i] = new LinkedBlockingQueue<Chunk>();
+        }
+    }
+
+    /**
+     * Performs the commands pulled from the reader as BookingSystem.Operations does, with the output being exactly
+     * the same. A parser thread hands every command to the shard that owns its voyage ID, every shard executes its
+     * commands on its own registry, and the calling thread writes the output back in command order. A Z report
+     * or a SEARCH_VOYAGES waits until every command before it is done and lists the voyages of all shards in ID order.
+     *
+     * @param reader The CommandReader the input commands are read from.
+     * @param writer The ReportSink the output is written into.
+     * @throws IOException If an I/O error occurs while reading the input or writing to the output file.
+     */
+    public void run(final CommandReader reader, ReportSink writer) throws IOException {
+        for (int i = 0; i < numberOfShards; i++) {
+            final int shard = i;
+            workers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    work(shard);
+                }
+            }, "shard-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        Thread parser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                parse(reader);
+            }
+        }, "parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        try {
+            write(writer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the shards", e);
+        } finally {
+            parser.interrupt();
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    private void parse(CommandReader reader) {
+        Chunk chunk = null;
+        try {
+            boolean hasZReport = false; //Whether the last command read so far is a Z report.
+            chunk = free.take();
+            CommandLine line = new CommandLine();
+            while (reader.next(line)) {
+                if (line.isEmpty()) {
+                    continue; // Skip the empty line.
+                }
+
+                Command command = line.command();
+                hasZReport = command == Command.Z_REPORT;
+                if (hasZReport || command == Command.SEARCH_VOYAGES) { //Both of them look at the voyages of every shard.
+                    chunk = dispatch(chunk);
+                    report(line, true);
+                    continue;
+                }
+                chunk.lines[chunk.count].copyFrom(line); //The line only stays valid until the reader reads the next one.
+                chunk.shardOf[chunk.count] = shardOf(command, line);
+                if (++chunk.count == CHUNK_SIZE) {
+                    chunk = dispatch(chunk);
+                }
+            }
+            dispatch(chunk);
+            chunk = null;
+            if (!hasZReport) {
+                report(CommandLine.of("Z_REPORT"), false); //If the last command in the input file is not Z_REPORT, it prints the last Z_REPORT command.
+            }
+            finish(null);
+        } catch (InterruptedException e) {
+            //The writer stopped, so nothing is waiting for the rest of the input.
+        } catch (Throwable t) {
+            finish(t);
+        }
+    }
+
+    private Chunk dispatch(Chunk chunk) throws InterruptedException { //Hands a chunk to every shard and returns an empty one.
+        if (chunk.count == 0) {
+            return chunk;
+        }
+        chunk.done = new CountDownLatch(numberOfShards);
+        pending.put(chunk);
+        for (BlockingQueue<Chunk> queue : shardQueues) {
+            queue.put(chunk);
+        }
+        return free.take();
+    }
+
+    private void report(CommandLine line, boolean isEcho) throws InterruptedException {
+        Chunk report = new Chunk(1, 0);
+        report.isReport = true;
+        report.isEcho = isEcho;
+        report.lines[0].copyFrom(line);
+        report.count = 1;
+        report.done = new CountDownLatch(1);
+        pending.put(report);
+        report.done.await(); //No command after the report may run before it is written.
+    }
+
+    private void finish(Throwable failure) {
+        Chunk last = new Chunk(0, 0);
+        last.isLast = true;
+        last.failure = failure;
+        pending.add(last);
+        for (BlockingQueue<Chunk> queue : shardQueues) {
+            queue.add(last);
+        }
+    }
+
+    private void work(int shard) {
+        VoyageManagement voyageManagement = new VoyageManagement(registries[shard]);
+        try {
+            while (true) {
+                Chunk chunk = shardQueues[shard].take();
+                if (chunk.isLast) {
+                    return;
+                }
+                ReportSink output = chunk.outputs[shard];
+                try {
+                    for (int i = 0; i < chunk.count; i++) {
+                        if (chunk.shardOf[i] == shard) {
+                            voyageManagement.voyageManagementOperation(chunk.lines[i], output);
+                            chunk.ends[i] = output.length();
+                        }
+                    }
+                } catch (Throwable t) {
+                    chunk.failure = t;
+                }
+                chunk.done.countDown();
+            }
+        } catch (InterruptedException e) {
+            //The writer stopped.
+        }
+    }
+
+    private void write(ReportSink writer) throws IOException, InterruptedException {
+        int[] starts = new int[numberOfShards];
+        while (true) {
+            Chunk chunk = pending.take();
+            if (chunk.isLast) {
+                rethrow(chunk.failure);
+                return;
+            }
+            if (chunk.isReport) {
+                if (chunk.isEcho) {
+                    echo(chunk.lines[0], writer);
+                }
+                reporter.voyageManagementOperation(chunk.lines[0], registries, writer);
+                chunk.done.countDown();
+                continue;
+            }
+
+            chunk.done.await();
+            rethrow(chunk.failure);
+            for (int i = 0; i < chunk.count; i++) {
+                int shard = chunk.shardOf[i];
+                echo(chunk.lines[i], writer);
+                writer.write(chunk.outputs[shard], starts[shard], chunk.ends[i]);
+                starts[shard] = chunk.ends[i];
+            }
+            for (int i = 0; i < numberOfShards; i++) {
+                chunk.outputs[i].reset();
+                starts[i] = 0;
+            }
+            chunk.count = 0;
+            free.put(chunk);
+        }
+    }
+
+    private static void echo(CommandLine line, ReportSink writer) throws IOException {
+        writer.write("COMMAND: ");
+        line.writeLine(writer);
+        writer.write('\n');
+    }
+
+    private int shardOf(Command command, CommandLine line) {
+        //INIT_VOYAGE names the voyage in its third field, the others in the second one. An ID that cannot be parsed
+        // is treated as 0, the ID an INIT_VOYAGE with such an ID looks up, which the other commands never use.
+        int field = command == Command.INIT_VOYAGE ? 2 : 1;
+        long voyageID = line.length() > field ? line.parseInt(field) : NumberParser.INVALID;
+        int hash = voyageID == NumberParser.INVALID ? 0 : (int) voyageID * 0x9E3779B9;
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % numberOfShards;
+    }
+
+    private static void rethrow(Throwable failure) throws IOException {
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new IOException(failure);
+        }
+    }
+}
@@ -1,7 +1,5 @@
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public class Voyage {
     private String voyageType;
@@ -11,43 +9,71 @@ public class Voyage {
     private int numberOfRows;
     private double price;
     private double revenue;
+    private final SeatLayout layout; //The seat geometry of the voyage type, which every command works from.
+    private int refundCut; //Percentage cut from refunds, 0 for a voyage type without refunds.
+    private int premiumFee; //Percentage added to the price of a premium seat, 0 for a voyage type without premium seats.
     private boolean isThereAnInputError = false;
-    private String[] line;
-    private ArrayList<String[]> seatPlan; //The seat plan represents the layout of bus seats, consisting of arrays of strings.
-
-    public Voyage(String[] line, FileWriter writer) throws IOException {
-        this.line = line; //"line" represents a line in the input file.
-        this.voyageType = line[1];
-        try {
-            this.voyageID = Integer.parseInt(line[2]);
-        } catch (
-                NumberFormatException e) { //If the voyage ID cannot be converted to an integer value, it prints an error message.
-            writer.write("ERROR: " + line[2] + " is not a positive integer, ID of a voyage must be a positive integer!\n");
+    private SeatMap seatMap; //The seat map holds one occupancy bit per seat of the bus.
+    private int version; //Increased on every change of the seats or the revenue.
+    private String details; //The rendered details of the voyage as of "detailsVersion", reused by the reports.
+    private int detailsVersion = -1;
+
+    public Voyage(CommandLine line, SeatLayout layout, ReportSink writer) throws IOException {
+        //"line" represents a line in the input file; its fields are parsed in place.
+        this.layout = layout;
+        this.voyageType = line.get(1);
+        long voyageID = line.parseInt(2);
+        if (voyageID == NumberParser.INVALID) { //If the voyage ID cannot be converted to an integer value, it prints an error message.
+            writer.write("ERROR: " + line.get(2) + " is not a positive integer, ID of a voyage must be a positive integer!\n");
             this.isThereAnInputError = true;
+        } else {
+            this.voyageID = (int) voyageID;
         }
-        this.from = line[3];
-        this.to = line[4];
+        this.from = line.get(3);
+        this.to = line.get(4);
         if (isThereAnInputError == false) {
-            try {
-                this.numberOfRows = Integer.parseInt(line[5]);
-            } catch (
-                    NumberFormatException e) { //If the numberOfRows cannot be converted to an integer value, it prints an error message.
-                writer.write("ERROR: " + line[5] + " is not a positive integer, number of seat rows of a voyage must be a positive integer!\n");
+            long numberOfRows = line.parseInt(5);
+            if (numberOfRows == NumberParser.INVALID) { //If the numberOfRows cannot be converted to an integer value, it prints an error message.
+                writer.write("ERROR: " + line.get(5) + " is not a positive integer, number of seat rows of a voyage must be a positive integer!\n");
                 this.isThereAnInputError = true;
+            } else {
+                this.numberOfRows = (int) numberOfRows;
             }
         }
         if (isThereAnInputError == false) {
             try {
-                this.price = Double.parseDouble(line[6]);
+                this.price = line.parseDouble(6);
             } catch (
                     NumberFormatException e) { //If the price cannot be converted to an integer value, it prints an error message.
-                writer.write("ERROR: " + line[6] + " is not a positive number, price must be a positive number!\n");
+                writer.write("ERROR: " + line.get(6) + " is not a positive number, price must be a positive number!\n");
                 this.isThereAnInputError = true;
             }
         }
 
     }
 
+    /**
+     * Constructs a voyage from fields that are already validated, as when it is restored from a journal or a
+     * snapshot. Nothing is written and the seat plan is still to be initialized.
+     *
+     * @param voyageType   The type of the voyage.
+     * @param layout       The seat layout of the voyage type.
+     * @param voyageID     The ID of the voyage.
+     * @param from         The departure city.
+     * @param to           The arrival city.
+     * @param numberOfRows The number of seat rows.
+     * @param price        The price of a regular seat.
+     */
+    public Voyage(String voyageType, SeatLayout layout, int voyageID, String from, String to, int numberOfRows, double price) {
+        this.voyageType = voyageType;
+        this.layout = layout;
+        this.voyageID = voyageID;
+        this.from = from;
+        this.to = to;
+        this.numberOfRows = numberOfRows;
+        this.price = price;
+    }
+
     public int getVoyageID() {
         return voyageID;
     }
@@ -76,16 +102,89 @@ public class Voyage {
         this.revenue = revenue;
     }
 
-    public ArrayList<String[]> getSeatPlan() {
-        return seatPlan;
+    public SeatLayout getLayout() {
+        return layout;
+    }
+
+    public int getNumberOfSeats() {
+        return numberOfRows * layout.getSeatsPerRow();
+    }
+
+    public int getRefundCut() {
+        return refundCut;
+    }
+
+    protected void setRefundCut(int refundCut) {
+        this.refundCut = refundCut;
+    }
+
+    public int getPremiumFee() {
+        return premiumFee;
+    }
+
+    protected void setPremiumFee(int premiumFee) {
+        this.premiumFee = premiumFee;
     }
 
-    public void setSeatPlan(ArrayList<String[]> seatPlan) {
-        this.seatPlan = seatPlan;
+    public double getPremiumSeatPrice() {
+        return price * ((double) (100 + premiumFee) / 100);
+    }
+
+    public SeatMap getSeatMap() {
+        return seatMap;
+    }
+
+    public void setSeatMap(SeatMap seatMap) {
+        this.seatMap = seatMap;
     }
 
     public void initializeSeatPlan() {
-        this.seatPlan = seatPlan;
+        initializeSeatPlan(SeatStore.HEAP);
+    }
+
+    /**
+     * Gives the voyage a seat plan in which every seat is empty, keeping its seats in the given store.
+     *
+     * @param store The store the seats of the voyage are kept in.
+     */
+    public void initializeSeatPlan(SeatStore store) {
+        this.seatMap = store.newSeatMap(layout, numberOfRows); //Every seat is empty at first.
+    }
+
+    /**
+     * Finds the first free seats of the given kind on the voyage, in seat number order.
+     *
+     * @param count      The number of seats to be found, or the number of pairs for SeatPreference.PAIR.
+     * @param preference The kind of seats to be found.
+     * @return The seat numbers found, both seats of every pair for PAIR; fewer than requested if there are not enough.
+     */
+    public int[] findFreeSeats(int count, SeatPreference preference) {
+        long wanted = preference == SeatPreference.PAIR ? 2L * count : count;
+        int[] seats = new int[(int) Math.min(wanted, seatMap.getNumberOfSeats())]; //No more seats can be free than there are.
+        int found = seatMap.findFreeSeats(preference, count, seats);
+        return found == seats.length ? seats : Arrays.copyOf(seats, found);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void markModified() { //Must be called after the seats or the revenue of the voyage have changed.
+        version++;
+    }
+
+    /**
+     * Returns the rendered details of the voyage if they were rendered at its current version.
+     *
+     * @return The rendered details, or null if they have to be rendered again.
+     */
+    public String getDetails() {
+        return detailsVersion == version ? details : null;
+    }
+
+    public void setDetails(String details) {
+        this.details = details;
+        this.detailsVersion = version;
     }
 
     public String getVoyageType() {
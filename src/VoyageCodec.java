@@ -0,0 +1,142 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public final class VoyageCodec {
+    private static final byte STANDARD = 0;
+    private static final byte PREMIUM = 1;
+    private static final byte MINIBUS = 2;
+
+    private VoyageCodec() {
+    }
+
+    /**
+     * Returns the number of bytes the fields of the given voyage take when written by write().
+     *
+     * @param voyage The voyage.
+     * @return The encoded size of its fields.
+     */
+    public static int size(Voyage voyage) {
+        return 4 + 1 + 4 + 8 + 4 + 4 + 4 + utf8Length(voyage.getFrom()) + 4 + utf8Length(voyage.getTo());
+    }
+
+    /**
+     * Writes the fields a voyage is initialized with: its ID, type, number of rows, price, refund cut, premium fee
+     * and route. The seats and the revenue are not written.
+     *
+     * @param buffer The buffer the fields are written into.
+     * @param voyage The voyage.
+     */
+    public static void write(ByteBuffer buffer, Voyage voyage) {
+        buffer.putInt(voyage.getVoyageID()).put(kindOf(voyage)).putInt(voyage.getNumberOfRows()).putDouble(voyage.getPrice())
+                .putInt(voyage.getRefundCut()).putInt(voyage.getPremiumFee());
+        writeString(buffer, voyage.getFrom());
+        writeString(buffer, voyage.getTo());
+    }
+
+    /**
+     * Reads the fields written by write() and constructs the voyage with an empty seat plan on the heap.
+     *
+     * @param buffer The buffer the fields are read from.
+     * @return The voyage.
+     */
+    public static Voyage read(ByteBuffer buffer) {
+        return read(buffer, SeatStore.HEAP);
+    }
+
+    /**
+     * Reads the fields written by write() and constructs the voyage with an empty seat plan.
+     *
+     * @param buffer The buffer the fields are read from.
+     * @param store  The store the seats of the voyage are kept in.
+     * @return The voyage.
+     */
+    public static Voyage read(ByteBuffer buffer, SeatStore store) {
+        int voyageID = buffer.getInt();
+        byte kind = buffer.get();
+        int numberOfRows = buffer.getInt();
+        double price = buffer.getDouble();
+        int refundCut = buffer.getInt();
+        int premiumFee = buffer.getInt();
+        String from = readString(buffer);
+        String to = readString(buffer);
+        return create(voyageID, kind, from, to, numberOfRows, price, refundCut, premiumFee, store);
+    }
+
+    /**
+     * Returns the number that stands for the type of the voyage in the encoded fields.
+     *
+     * @param voyage The voyage.
+     * @return The encoded type of the voyage.
+     */
+    public static byte kindOf(Voyage voyage) {
+        SeatLayout layout = voyage.getLayout();
+        return layout == SeatLayout.PREMIUM ? PREMIUM : layout == SeatLayout.STANDARD ? STANDARD : MINIBUS;
+    }
+
+    /**
+     * Constructs a voyage from its decoded fields, with an empty seat plan.
+     *
+     * @param voyageID     The ID of the voyage.
+     * @param kind         The encoded type of the voyage, as returned by kindOf().
+     * @param from         The city the voyage departs from.
+     * @param to           The city the voyage arrives at.
+     * @param numberOfRows The number of seat rows.
+     * @param price        The price of a regular seat.
+     * @param refundCut    The refund cut percentage, ignored for a minibus.
+     * @param premiumFee   The premium fee percentage, ignored unless the voyage is a premium one.
+     * @param store        The store the seats of the voyage are kept in.
+     * @return The voyage.
+     * @throws IllegalArgumentException If the encoded type is not known.
+     */
+    public static Voyage create(int voyageID, byte kind, String from, String to, int numberOfRows, double price,
+                                int refundCut, int premiumFee, SeatStore store) {
+        Voyage voyage;
+        if (kind == STANDARD) {
+            voyage = new StandartVoyage(voyageID, from, to, numberOfRows, price, refundCut);
+        } else if (kind == PREMIUM) {
+            voyage = new PremiumVoyage(voyageID, from, to, numberOfRows, price, refundCut, premiumFee);
+        } else if (kind == MINIBUS) {
+            voyage = new MinibusVoyage(voyageID, from, to, numberOfRows, price);
+        } else {
+            throw new IllegalArgumentException("Unknown voyage type " + kind);
+        }
+        voyage.initializeSeatPlan(store);
+        return voyage;
+    }
+
+    private static void writeString(ByteBuffer buffer, String text) { //The length is an int, so that any city name the input allows fits.
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) { //A damaged length must not allocate a huge array.
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length]; //The buffer may be a mapped one, which has no array to decode from.
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int utf8Length(String text) { //Also sizes the city names of a MappedSeatStore.
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++; //An unpaired surrogate is encoded as '?'.
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,402 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class VoyageJournal implements IVoyageListener, Closeable {
+    public static final int DEFAULT_GROUP_SIZE = 256;
+
+    private static final byte INIT = 1;
+    private static final byte SELL = 2;
+    private static final byte REFUND = 3;
+    private static final byte CANCEL = 4;
+    private static final byte PROGRESS = 5; //How far the run has got through its input and its output.
+    private static final byte RUN_END = 6; //The run completed, so the next one starts at the beginning of its input.
+    private static final int HEADER_SIZE = 8; //The length and the CRC32 of the payload precede every record.
+    private static final int MAX_RECORD_SIZE = 1 << 24; //Anything longer is taken as a torn or corrupt record.
+
+    private final FileChannel channel;
+    private final int groupSize;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 16); //Records not written to the file yet.
+    private int pendingRecords; //Records appended since the last commit.
+    private long recoveredRecords;
+    private long consumedLines; //The input lines the current run has consumed, including the ones of a resumed run.
+    private long resumedLines; //Where an interrupted run stopped, as recorded by its last progress record.
+    private long resumedOutputLength;
+    private boolean resumedPendingNewLine;
+    private RunFiles runFiles = new RunFiles("", 0, 0, ""); //The files of the current run, recorded in every progress record.
+    private RunFiles resumedFiles; //The files of the interrupted run, as recorded by its last progress record.
+
+    /**
+     * The input and output files of a run, which tell whether a run may continue an interrupted one.
+     */
+    private static final class RunFiles {
+        final String input;
+        final long inputSize;
+        final long inputModified;
+        final String output;
+
+        RunFiles(String input, long inputSize, long inputModified, String output) {
+            this.input = input;
+            this.inputSize = inputSize;
+            this.inputModified = inputModified;
+            this.output = output;
+        }
+
+        boolean isSameAs(RunFiles other) {
+            return other != null && input.equals(other.input) && inputSize == other.inputSize
+                    && inputModified == other.inputModified && output.equals(other.output);
+        }
+    }
+
+    private VoyageJournal(FileChannel channel, int groupSize) {
+        this.channel = channel;
+        this.groupSize = groupSize;
+    }
+
+    /**
+     * Opens the journal at the given path, creating it if it does not exist. The voyages recorded in an existing
+     * journal are restored into the given registry first. The changes are only restored up to the last progress
+     * record, as the commands after it are going to be run again; the records after it and a torn record at the
+     * end, left by a crash, are cut off. If the last run was interrupted, getResumedLines() tells how far it got,
+     * until startRun() finds that the new run uses other files.
+     * New records are appended to the journal and forced to the disk, together with the output, once per group of
+     * records.
+     *
+     * @param path      Path to the journal file.
+     * @param voyages   The registry the recorded voyages are restored into.
+     * @param groupSize The number of records written to the disk together; 1 forces every record on its own.
+     * @return The journal, ready to record the changes that follow.
+     * @throws IOException If the journal cannot be read or opened.
+     */
+    public static VoyageJournal open(String path, VoyageRegistry voyages, int groupSize) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        VoyageJournal journal = new VoyageJournal(channel, Math.max(1, groupSize));
+        try {
+            long validLength = journal.replay(voyages);
+            if (validLength < channel.size()) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+            channel.position(validLength);
+            journal.consumedLines = journal.resumedLines;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Returns the number of records restored when the journal was opened.
+     *
+     * @return The number of restored records.
+     */
+    public long getRecoveredRecords() {
+        return recoveredRecords;
+    }
+
+    /**
+     * Tells the journal which input and output files the run uses, so that they are recorded with its progress.
+     * An interrupted run is only continued by a run on the same files, with the input unchanged in size and
+     * modification time; any other run starts at the first line of its input and writes its output file anew, on
+     * top of the changes the interrupted run committed.
+     *
+     * @param inputFileName  Path to the input file of the run.
+     * @param outputFileName Path to the output file of the run.
+     * @throws IOException If the input file cannot be read.
+     */
+    public synchronized void startRun(String inputFileName, String outputFileName) throws IOException {
+        Path input = Paths.get(inputFileName).toAbsolutePath().normalize();
+        runFiles = new RunFiles(input.toString(), Files.size(input), Files.getLastModifiedTime(input).toMillis(),
+                Paths.get(outputFileName).toAbsolutePath().normalize().toString());
+        if (runFiles.isSameAs(resumedFiles) == false) {
+            resumedLines = 0;
+            resumedOutputLength = 0;
+            resumedPendingNewLine = false;
+            consumedLines = 0;
+        }
+    }
+
+    /**
+     * Returns the number of input lines consumed by the run that was interrupted before this journal was opened,
+     * which are to be skipped, or 0 if the last run completed or the current one uses other files.
+     *
+     * @return The number of input lines to be skipped.
+     */
+    public long getResumedLines() {
+        return resumedLines;
+    }
+
+    /**
+     * Returns the number of bytes of its output file the interrupted run had written when it consumed the lines
+     * returned by getResumedLines().
+     *
+     * @return The length the output file is to be cut back to.
+     */
+    public long getResumedOutputLength() {
+        return resumedOutputLength;
+    }
+
+    /**
+     * Returns whether the output of the interrupted run was followed by a newline that had not been written yet.
+     *
+     * @return True if the resumed output starts with a newline.
+     */
+    public boolean hasResumedPendingNewLine() {
+        return resumedPendingNewLine;
+    }
+
+    /**
+     * Counts an input line as consumed once its command has been executed and its output written into the given
+     * sink. When a group of records is complete, the output is forced to the disk and a progress record is
+     * committed with the records, so that a crashed run can be resumed after the last line committed.
+     *
+     * @param writer The ReportSink the output of the run is written into.
+     * @throws IOException If an I/O error occurs while writing the output or the journal.
+     */
+    public synchronized void lineConsumed(ReportSink writer) throws IOException {
+        consumedLines++;
+        if (pendingRecords >= groupSize) { //Group commit: one force for a whole group of records.
+            checkpoint(writer);
+        }
+    }
+
+    /**
+     * Forces the output written so far to the disk and commits the records appended so far together with a
+     * progress record holding the number of input lines consumed and the length of the output.
+     *
+     * @param writer The ReportSink the output of the run is written into.
+     * @throws IOException If an I/O error occurs while writing the output or the journal.
+     */
+    public synchronized void checkpoint(ReportSink writer) throws IOException {
+        long outputLength = writer.sync(); //The output must be on the disk before the journal says it is.
+        byte[] input = runFiles.input.getBytes(StandardCharsets.UTF_8);
+        byte[] output = runFiles.output.getBytes(StandardCharsets.UTF_8);
+        int start = begin(1 + 8 + 8 + 1 + 8 + 8 + 4 + input.length + 4 + output.length);
+        buffer.put(PROGRESS).putLong(consumedLines).putLong(outputLength).put((byte) (writer.length() > 0 ? 1 : 0))
+                .putLong(runFiles.inputSize).putLong(runFiles.inputModified)
+                .putInt(input.length).put(input).putInt(output.length).put(output);
+        end(start);
+        commit();
+    }
+
+    @Override
+    public synchronized void voyageInitialized(Voyage voyage) throws IOException {
+        int start = begin(1 + VoyageCodec.size(voyage));
+        buffer.put(INIT);
+        VoyageCodec.write(buffer, voyage);
+        end(start);
+    }
+
+    @Override
+    public synchronized void ticketsSold(Voyage voyage, SeatList seats) throws IOException {
+        appendSeats(SELL, voyage, seats);
+    }
+
+    @Override
+    public synchronized void ticketsRefunded(Voyage voyage, SeatList seats) throws IOException {
+        appendSeats(REFUND, voyage, seats);
+    }
+
+    @Override
+    public synchronized void voyageCancelled(Voyage voyage) throws IOException {
+        int start = begin(1 + 4);
+        buffer.put(CANCEL).putInt(voyage.getVoyageID());
+        end(start);
+    }
+
+    /**
+     * Writes the records appended so far to the journal file and forces them to the disk. They are only restored
+     * when the journal is opened again once a progress record, or the end of the run, follows them.
+     *
+     * @throws IOException If an I/O error occurs while writing the journal.
+     */
+    public synchronized void commit() throws IOException {
+        writeBuffer();
+        channel.force(false);
+        pendingRecords = 0;
+    }
+
+    /**
+     * Marks the run as completed, so that the next one starts from the beginning of its input, commits the
+     * remaining records and closes the journal file.
+     *
+     * @throws IOException If an I/O error occurs while writing the journal.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            int start = begin(1);
+            buffer.put(RUN_END);
+            end(start);
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void appendSeats(byte type, Voyage voyage, SeatList seats) throws IOException {
+        //The revenue after the change is recorded as is, so that it is restored to the very same value.
+        int start = begin(1 + 4 + 4 + 4 * seats.size() + 8);
+        buffer.put(type).putInt(voyage.getVoyageID()).putInt(seats.size());
+        for (int i = 0; i < seats.size(); i++) {
+            buffer.putInt(seats.get(i));
+        }
+        buffer.putDouble(voyage.getRevenue());
+        end(start);
+    }
+
+    private int begin(int payloadSize) throws IOException { //Makes room for a record and skips its header, which is filled in by end().
+        int recordSize = HEADER_SIZE + payloadSize;
+        if (buffer.remaining() < recordSize) {
+            writeBuffer();
+            if (buffer.capacity() < recordSize) {
+                buffer = ByteBuffer.allocate(recordSize);
+            }
+        }
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        return start;
+    }
+
+    private void end(int start) throws IOException {
+        int payloadStart = start + HEADER_SIZE;
+        int payloadSize = buffer.position() - payloadStart;
+        crc.reset();
+        crc.update(buffer.array(), payloadStart, payloadSize);
+        buffer.putInt(start, payloadSize);
+        buffer.putInt(start + 4, (int) crc.getValue());
+        pendingRecords++;
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private long replay(VoyageRegistry voyages) throws IOException {
+        //The records of the voyages are held back until a progress or run end record shows that the commands they
+        // come from are not going to be run again; the first record that is cut off or fails its CRC ends the journal.
+        channel.position(0);
+        InputStream stream = Channels.newInputStream(channel);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        byte[] payload = new byte[256];
+        ByteBuffer held = ByteBuffer.allocate(1 << 16); //The size and the payload of every record held back.
+        int heldRecords = 0;
+        long length = 0;
+        long validLength = 0;
+        while (true) {
+            int payloadSize;
+            int checksum;
+            try {
+                payloadSize = input.readInt();
+                checksum = input.readInt();
+                if (payloadSize <= 0 || payloadSize > MAX_RECORD_SIZE) {
+                    break;
+                }
+                if (payload.length < payloadSize) {
+                    payload = new byte[Math.max(payloadSize, payload.length * 2)];
+                }
+                input.readFully(payload, 0, payloadSize);
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(payload, 0, payloadSize);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            length += HEADER_SIZE + payloadSize;
+
+            byte type = payload[0];
+            if (type == PROGRESS || type == RUN_END) {
+                held.flip();
+                while (held.hasRemaining()) {
+                    int size = held.getInt();
+                    ByteBuffer record = held.slice();
+                    record.limit(size);
+                    apply(record, voyages);
+                    held.position(held.position() + size);
+                }
+                held.clear();
+                recoveredRecords += heldRecords;
+                heldRecords = 0;
+                validLength = length;
+                ByteBuffer progress = ByteBuffer.wrap(payload, 1, payloadSize - 1);
+                resumedLines = type == PROGRESS ? progress.getLong() : 0;
+                resumedOutputLength = type == PROGRESS ? progress.getLong() : 0;
+                resumedPendingNewLine = type == PROGRESS && progress.get() != 0;
+                resumedFiles = type == PROGRESS ? readRunFiles(progress) : null;
+            } else {
+                if (held.remaining() < 4 + payloadSize) {
+                    ByteBuffer larger = ByteBuffer.allocate(Math.max(held.capacity() * 2, held.position() + 4 + payloadSize));
+                    held.flip();
+                    held = larger.put(held);
+                }
+                held.putInt(payloadSize).put(payload, 0, payloadSize);
+                heldRecords++;
+            }
+        }
+        return validLength;
+    }
+
+    private static RunFiles readRunFiles(ByteBuffer progress) {
+        long inputSize = progress.getLong();
+        long inputModified = progress.getLong();
+        String input = readString(progress);
+        return new RunFiles(input, inputSize, inputModified, readString(progress));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()]; //The record passed its CRC, so the length is the one written.
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void apply(ByteBuffer record, VoyageRegistry voyages) throws IOException {
+        byte type = record.get();
+        if (type == INIT) {
+            voyages.add(VoyageCodec.read(record, voyages.getSeatStore()));
+            return;
+        }
+
+        int voyageID = record.getInt();
+        Voyage voyage = voyages.get(voyageID);
+        if (voyage == null) {
+            throw new IOException("The journal refers to voyage " + voyageID + ", which it does not initialize");
+        }
+        if (type == CANCEL) {
+            voyages.remove(voyageID);
+        } else if (type == SELL || type == REFUND) {
+            SeatMap seatMap = voyage.getSeatMap();
+            int count = record.getInt();
+            for (int i = 0; i < count; i++) {
+                if (type == SELL) {
+                    seatMap.occupy(record.getInt());
+                } else {
+                    seatMap.release(record.getInt());
+                }
+            }
+            voyage.setRevenue(record.getDouble());
+            voyage.markModified();
+        } else {
+            throw new IOException("Unknown journal record type " + type);
+        }
+    }
+}
@@ -1,69 +1,79 @@
-import java.io.FileWriter;
 import java.io.IOException;
-import java.text.DecimalFormat;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
 
 public class VoyageManagement implements IVoyageManegement {
-    private String[] line;
-    List<Voyage> voyages;
+    private final VoyageRegistry voyages;
+    private final SeatList seatList = new SeatList(); //Reused by every SELL_TICKET and REFUND_TICKET command.
+    private final ReportSink scratch = ReportSink.inMemory(); //The details of a voyage are rendered here before they are cached.
+    private IVoyageListener listener; //Told about every change that is applied, null if nothing listens.
+    private BookingMetrics metrics; //Null while the metrics are disabled, which leaves a single null check per command.
+    private ErrorKind firstError; //The kind of the first error the current command reported.
 
     /**
-     * Constructs a VoyageManagement object with the specified input line and list of voyages.
+     * Constructs a VoyageManagement object that executes commands on the given registry of voyages.
+     * A single object is meant to be reused for every command of the input. The commands are recorded into
+     * the metrics of the process if they are enabled.
      *
-     * @param line    An array of strings representing the input line.
-     * @param voyages A List of Voyage objects to manage.
+     * @param voyages The registry of voyages to manage.
      */
-    public VoyageManagement(String[] line, List<Voyage> voyages) {
-        this.line = line;
+    public VoyageManagement(VoyageRegistry voyages) {
         this.voyages = voyages;
+        this.metrics = BookingMetrics.current();
     }
 
     /**
-     * Formats the given double value to a string with two decimal places.
+     * Sets the listener that is told about every voyage that is initialized or cancelled and every ticket that is
+     * sold or refunded, after the change is applied.
      *
-     * @param value The double value to be formatted.
-     * @return A string representing the formatted value with two decimal places.
+     * @param listener The listener, or null to remove it.
      */
-    public String formatValue(double value) {
-        DecimalFormat df = new DecimalFormat("0.00");
-        String formattedValue = df.format(value).replace(',', '.');
-        return formattedValue;
+    public void setListener(IVoyageListener listener) {
+        this.listener = listener;
     }
 
     /**
-     * Initializes a new voyage based on the provided command line and adds it to the list of voyages.
+     * Sets the metrics every command is recorded into.
      *
-     * @param voyages A List of Voyage objects representing existing voyages.
-     * @param writer  The FileWriter object used for writing output.
+     * @param metrics The metrics, or null to record nothing.
+     */
+    public void setMetrics(BookingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Initializes a new voyage based on the provided command line and adds it to the registry of voyages.
+     *
+     * @param line    The fields of the command line.
+     * @param voyages The registry of existing voyages.
+     * @param writer  The ReportSink the output is written into.
      * @throws IOException If an I/O error occurs while writing to the output file.
      */
     @Override
-    public void initVoyage(List<Voyage> voyages, FileWriter writer) throws IOException {
+    public void initVoyage(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException {
         Voyage voyage = null; //The object to be created appropriately in the subclass will be held as an object of type Voyage.
         boolean isThereAnError = false;
 
-        if (line[1].equals("Standard")) {
-            if (line.length != 8) { //It checks whether the line has the appropriate number of elements.
+        if (line.fieldEquals(1, "Standard")) {
+            if (line.length() != 8) { //It checks whether the line has the appropriate number of elements.
                 isThereAnError = true;
+                error(ErrorKind.USAGE);
                 writer.write("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!\n");
             } else {
                 voyage = new StandartVoyage(line, writer);
             }
 
-        } else if (line[1].equals("Premium")) {
-            if (line.length != 9) { //It checks whether the line has the appropriate number of elements.
+        } else if (line.fieldEquals(1, "Premium")) {
+            if (line.length() != 9) { //It checks whether the line has the appropriate number of elements.
                 isThereAnError = true;
+                error(ErrorKind.USAGE);
                 writer.write("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!\n");
             } else {
                 voyage = new PremiumVoyage(line, writer);
             }
 
-        } else if (line[1].equals("Minibus")) {
-            if (line.length != 7) { //It checks whether the line has the appropriate number of elements.
+        } else if (line.fieldEquals(1, "Minibus")) {
+            if (line.length() != 7) { //It checks whether the line has the appropriate number of elements.
                 isThereAnError = true;
+                error(ErrorKind.USAGE);
                 writer.write("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!\n");
             } else {
                 voyage = new MinibusVoyage(line, writer);
@@ -71,47 +81,66 @@ public class VoyageManagement implements IVoyageManegement {
 
         } else {
             isThereAnError = true; //If the voyage type is not standard, premium, or minibus, it prints an error message
+            error(ErrorKind.USAGE);
             writer.write("ERROR: Erroneous usage of \"INIT_VOYAGE\" command!\n");
 
         }
 
         if (voyage != null) {
             isThereAnError = voyage.isThereAnInputError();
+            if (isThereAnError) {
+                error(ErrorKind.INVALID_ARGUMENT); //The voyage wrote the message itself.
+            }
 
-            for (int i = 0; i < voyages.size(); i++) {
-                if (voyage.getVoyageID() == voyages.get(i).getVoyageID()) {
+            if (voyages.contains(voyage.getVoyageID())) {
+                isThereAnError = true;
+                error(ErrorKind.DUPLICATE_VOYAGE);
+                writer.write("ERROR: There is already a voyage with ID of " + voyage.getVoyageID() + "!\n");
+            }
+
+            if (isThereAnError == false) {
+                voyage.initializeSeatPlan(voyages.getSeatStore());
+                if (voyages.getSeatStore().makeRoom(voyage) == false) { //Checked before the voyage is registered, so nothing refers to it.
                     isThereAnError = true;
-                    writer.write("ERROR: There is already a voyage with ID of " + voyage.getVoyageID() + "!\n");
+                    error(ErrorKind.INVALID_ARGUMENT);
+                    writer.write("ERROR: There is no room for the seats of voyage " + voyage.getVoyageID() + " in the seat store!\n");
                 }
             }
 
             if (isThereAnError == false) {
-                voyage.initializeSeatPlan();
-                int index = 0;
-                //According to the index number, a new voyage is added to the voyages array list at the appropriate position.
-                while (index < voyages.size() && voyages.get(index).getVoyageID() < voyage.getVoyageID()) {
-                    index++;
+                voyages.add(voyage); //The registry keeps the voyages in ID order for the Z report.
+                if (listener != null) {
+                    listener.voyageInitialized(voyage);
                 }
-                voyages.add(index, voyage);
                 if (voyage.getVoyageType().equals("Standard")) {
                     writer.write("Voyage " + voyage.getVoyageID() + " was initialized as a standard (2+2)" +
-                            " voyage from " + voyage.getFrom() + " to " + voyage.getTo() + " with " + formatValue(voyage.getPrice()) + " TL " +
+                            " voyage from " + voyage.getFrom() + " to " + voyage.getTo() + " with ");
+                    MoneyFormat.append(writer, voyage.getPrice());
+                    writer.write(" TL " +
                             "priced " + 4 * voyage.getNumberOfRows() + " regular seats. Note that refunds will" +
-                            " be " + line[7] + "% less than the paid amount.\n");
+                            " be ");
+                    line.write(7, writer);
+                    writer.write("% less than the paid amount.\n");
 
                 } else if (voyage.getVoyageType().equals("Premium")) {
-                    int premiumFee = Integer.parseInt(line[8]);
-                    double premiumPrice = voyage.getPrice() * ((double) (100 + premiumFee) / 100);
+                    double premiumPrice = voyage.getPremiumSeatPrice();
                     writer.write(
                             "Voyage " + voyage.getVoyageID() + " was initialized as a premium (1+2) voyage from " +
-                                    voyage.getFrom() + " to " + voyage.getTo() + " with " + formatValue(voyage.getPrice()) + " TL priced "
-                                    + voyage.getNumberOfRows() * 2 + " regular seats" +
-                                    " and " + formatValue(premiumPrice) + " TL priced " + voyage.getNumberOfRows() + " premium seats. Note that refunds will be " +
-                                    line[7] + "% less than the paid amount.\n");
+                                    voyage.getFrom() + " to " + voyage.getTo() + " with ");
+                    MoneyFormat.append(writer, voyage.getPrice());
+                    writer.write(" TL priced "
+                            + voyage.getNumberOfRows() * 2 + " regular seats" +
+                            " and ");
+                    MoneyFormat.append(writer, premiumPrice);
+                    writer.write(" TL priced " + voyage.getNumberOfRows() + " premium seats. Note that refunds will be ");
+                    line.write(7, writer);
+                    writer.write("% less than the paid amount.\n");
 
                 } else if (voyage.getVoyageType().equals("Minibus")) {
                     writer.write("Voyage " + voyage.getVoyageID() + " was initialized as a minibus (2) voyage" +
-                            " from " + voyage.getFrom() + " to " + voyage.getTo() + " with " + formatValue(voyage.getPrice()) + " TL priced "
+                            " from " + voyage.getFrom() + " to " + voyage.getTo() + " with ");
+                    MoneyFormat.append(writer, voyage.getPrice());
+                    writer.write(" TL priced "
                             + voyage.getNumberOfRows() * 2 + " regular seats." +
                             " Note that minibus tickets are not refundable.\n");
                 }
@@ -122,101 +151,65 @@ public class VoyageManagement implements IVoyageManegement {
     /**
      * Cancels a voyage based on the provided voyage ID and updates the revenue accordingly.
      *
-     * @param voyages A List of Voyage objects representing existing voyages.
-     * @param writer  The FileWriter object used for writing output.
+     * @param line    The fields of the command line.
+     * @param voyages The registry of existing voyages.
+     * @param writer  The ReportSink the output is written into.
      * @throws IOException If an I/O error occurs while writing to the output file.
      */
     @Override
-    public void cancelVoyage(List<Voyage> voyages, FileWriter writer) throws IOException {
+    public void cancelVoyage(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException {
         boolean isThereAnError = false;
         Voyage voyage = null;
 
-        if (line.length != 2) {
+        if (line.length() != 2) {
             isThereAnError = true;
+            error(ErrorKind.USAGE);
             writer.write("ERROR: Erroneous usage of \"CANCEL_VOYAGE\" command!\n");
         }
         if (isThereAnError == false) {
-            try {
-                int voyageID = Integer.parseInt(line[1]);
-            } catch (NumberFormatException e) {
-                writer.write("ERROR: " + line[1] + " is not a positive integer, ID of a voyage must be a positive integer!\n");
+            long parsedID = line.parseInt(1);
+            if (parsedID == NumberParser.INVALID) {
+                error(ErrorKind.INVALID_ARGUMENT);
+                writer.write("ERROR: " + line.get(1) + " is not a positive integer, ID of a voyage must be a positive integer!\n");
                 isThereAnError = true;
             }
 
             if (isThereAnError == false) {
-                int voyageID = Integer.parseInt(line[1]);
+                int voyageID = (int) parsedID;
                 if (voyageID < 0) {
                     isThereAnError = true;
+                    error(ErrorKind.INVALID_ARGUMENT);
                     writer.write("ERROR: " + voyageID + " is not a positive integer, ID of a voyage must be a positive integer!\n");
                 }
 
-                boolean isThereVoyage = false;
-
-                for (int i = 0; i < voyages.size(); i++) {
-                    if (voyages.get(i).getVoyageID() == voyageID) {
-                        voyage = voyages.get(i);
-                        isThereVoyage = true; //If there is a voyage with the same ID, it returns true; otherwise, it returns false.
-                    }
-                }
+                voyage = voyages.get(voyageID);
+                boolean isThereVoyage = voyage != null; //If there is a voyage with the same ID, it returns true; otherwise, it returns false.
 
                 if (isThereVoyage == false && isThereAnError == false) { //If there is no voyage with the same ID, it prints an error message.
                     isThereAnError = true;
+                    error(ErrorKind.NO_SUCH_VOYAGE);
                     writer.write("ERROR: There is no voyage with ID of " + voyageID + "!\n");
                 }
             }
         }
         if (isThereAnError == false) {
             double revenue = voyage.getRevenue();
-            double feeForOccupiedSeats = 0;
-            List<String[]> seatPlan;
 
             //If the voyage is to be canceled,
             // the money for the occupied seats in that voyage should be refunded,
             // and the remaining amount (deducted from the refunded tickets) should be the revenue.
-
-            //RX represents occupied regular seats, while PX represents occupied premium seats.
-            if (voyage instanceof StandartVoyage) {
-                StandartVoyage standartVoyage = (StandartVoyage) voyage;
-                seatPlan = standartVoyage.getSeatPlan();
-                for (String[] seatRow : seatPlan) {
-                    for (String seat : seatRow) {
-                        if (Objects.equals(seat, "RX")) {
-                            feeForOccupiedSeats += standartVoyage.getPrice();
-                        }
-                    }
-                }
-
-            } else if (voyage instanceof PremiumVoyage) {
-                PremiumVoyage premiumVoyage = (PremiumVoyage) voyage;
-                seatPlan = premiumVoyage.getSeatPlan();
-                for (String[] seatRow : seatPlan) {
-                    for (String seat : seatRow) {
-                        if (Objects.equals(seat, "RX")) {
-                            feeForOccupiedSeats += premiumVoyage.getPrice();
-                        } else if (Objects.equals(seat, "PX")) {
-                            feeForOccupiedSeats += premiumVoyage.getPremiumSeatPrice();
-                        }
-                    }
-                }
-
-            } else if (voyage instanceof MinibusVoyage) {
-                MinibusVoyage minibusVoyage = (MinibusVoyage) voyage;
-                seatPlan = minibusVoyage.getSeatPlan();
-                for (String[] seatRow : seatPlan) {
-                    for (String seat : seatRow) {
-                        if (Objects.equals(seat, "RX")) {
-                            feeForOccupiedSeats += minibusVoyage.getPrice();
-                        }
-                    }
-                }
-            }
+            double feeForOccupiedSeats = voyage.getSeatMap().occupiedFee(voyage.getPrice(), voyage.getPremiumSeatPrice());
 
             double currentRevenue = revenue - feeForOccupiedSeats;
             voyage.setRevenue(currentRevenue);
+            voyage.markModified();
             writer.write("Voyage " + voyage.getVoyageID() + " was successfully cancelled!\n");
             writer.write("Voyage details can be found below:\n");
-            printVoyage(voyages, writer);
-            voyages.remove(voyage);
+            writeDetails(voyage, writer);
+            voyages.remove(voyage.getVoyageID());
+            if (listener != null) {
+                listener.voyageCancelled(voyage);
+            }
         }
     }
 
@@ -224,232 +217,100 @@ public class VoyageManagement implements IVoyageManegement {
      * Sells tickets for a specific voyage based on the provided voyage ID and seat numbers,
      * updates revenue accordingly, and checks for errors during the process.
      *
-     * @param voyages A List of Voyage objects representing existing voyages.
-     * @param writer  The FileWriter object used for writing output.
+     * @param line    The fields of the command line.
+     * @param voyages The registry of existing voyages.
+     * @param writer  The ReportSink the output is written into.
      * @throws IOException If an I/O error occurs while writing to the output file.
      */
     @Override
-    public void sellTicket(List<Voyage> voyages, FileWriter writer) throws IOException {
+    public void sellTicket(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException {
         boolean isThereAnError = false;
         double moneyEarned = 0; //Money earned from the sold ticket.
         Voyage currentVoyage = null;
 
-        List<Integer> seatsNumbers = new ArrayList<>();
-
-        if (line.length != 3) {
+        if (line.length() != 3) {
             isThereAnError = true;
+            error(ErrorKind.USAGE);
             writer.write("ERROR: Erroneous usage of \"SELL_TICKET\" command!\n");
         }
 
+        long parsedID = NumberParser.INVALID;
         if (isThereAnError == false) {
-            try {
-                int voyageID = Integer.parseInt(line[1]);
-            } catch (NumberFormatException e) {
-                writer.write("ERROR: There is no voyage with ID of " + line[1] + "!\n");
+            parsedID = line.parseInt(1);
+            if (parsedID == NumberParser.INVALID) {
+                error(ErrorKind.NO_SUCH_VOYAGE);
+                writer.write("ERROR: There is no voyage with ID of " + line.get(1) + "!\n");
                 isThereAnError = true;
             }
         }
 
         if (isThereAnError == false) {
-            boolean isThereVoyage = false;
-            int voyageID = Integer.parseInt(line[1]);
-            for (Voyage voyage : voyages) {
-                if (voyage.getVoyageID() == voyageID) {
-                    isThereVoyage = true;
-                    currentVoyage = voyage;
-                    break;
-                }
-            }
+            int voyageID = (int) parsedID;
+            currentVoyage = voyages.get(voyageID);
+            boolean isThereVoyage = currentVoyage != null;
             if (isThereVoyage == false) { //If there is no voyage with the same ID, it prints an error.
                 isThereAnError = true;
+                error(ErrorKind.NO_SUCH_VOYAGE);
                 writer.write("ERROR: There is no voyage with ID of " + voyageID + "!\n");
             }
         }
 
         if (isThereAnError == false) {
-            String[] seats = line[2].split("_");
-
-            for (String seat : seats) {
-                try {
-                    int seatNumber = Integer.parseInt(seat);
-                } catch (NumberFormatException e) {
-                    isThereAnError = true;
-                    writer.write("ERROR: " + seat + " is not a positive integer, seat number must be a positive integer!");
-                }
-                if (isThereAnError == false) {
-                    int seatNumber = Integer.parseInt(seat);
-                    seatsNumbers.add(seatNumber);
-                }
+            isThereAnError = !seatList.parse(line, 2, writer);
+            if (isThereAnError) {
+                error(ErrorKind.INVALID_SEAT);
             }
         }
 
         if (isThereAnError == false) {
-            int voyageID = Integer.parseInt(line[1]);
-            int numberOfSeats = 0;
-
-            for (int i = 0; i < seatsNumbers.size(); i++) {
-                int count = 0;
-                for (int j = 0; j < seatsNumbers.size(); j++) {
-                    if (Objects.equals(seatsNumbers.get(i), seatsNumbers.get(j))) {
-                        count++;
-                    }
-                }
-                if (count > 1) {
-                    writer.write("ERROR: Seat " + seatsNumbers.get(i) + " cannot be sold more than once.\n");
-                    isThereAnError = true;
-                    break;
-                }
+            SeatMap seatMap = currentVoyage.getSeatMap();
+
+            //Duplicates, seat ranges and already sold seats are all checked in a single pass over the seat list.
+            int problem = seatList.check(seatMap, false);
+            if (problem == SeatList.DUPLICATE) {
+                error(ErrorKind.INVALID_SEAT);
+                writer.write("ERROR: Seat " + seatList.getProblemSeat() + " cannot be sold more than once.\n");
+            } else if (problem == SeatList.NOT_POSITIVE) {
+                error(ErrorKind.INVALID_SEAT);
+                writer.write("ERROR: " + seatList.getProblemSeat() + " is not a positive integer, seat number must be a positive integer!\n");
+            } else if (problem == SeatList.NO_SUCH_SEAT) {
+                error(ErrorKind.INVALID_SEAT);
+                writer.write("ERROR: There is no such a seat!\n");
+            } else if (problem == SeatList.UNAVAILABLE) {
+                error(ErrorKind.SEAT_UNAVAILABLE);
+                writer.write("ERROR: One or more seats already sold!\n");
             }
+            isThereAnError = problem != SeatList.VALID;
 
             if (isThereAnError == false) {
-
-                for (int seatNumber : seatsNumbers) {
-                    int row = 0;
-                    int column = 0;
-
-                    //RX represents occupied regular seats, while PX represents occupied premium seats.
-
-                    if (currentVoyage instanceof StandartVoyage) {
-                        StandartVoyage standartVoyage = (StandartVoyage) currentVoyage;
-                        numberOfSeats = standartVoyage.getNumberOfSeats();
-                        row = standartVoyage.getRow(seatNumber);
-                        column = standartVoyage.getColumn(seatNumber);
-
-                        if (seatNumber < 1) {
-                            isThereAnError = true;
-                            writer.write("ERROR: " + seatNumber + " is not a positive integer, seat number must be a positive integer!\n");
-                            break;
-
-                        } else if (seatNumber > numberOfSeats) {
-                            isThereAnError = true;
-                            writer.write("ERROR: There is no such a seat!\n");
-                            break;
-
-                        } else if (Objects.equals(standartVoyage.getSeatPlan().get(row - 1)[column - 1], "RX")) {
-                            isThereAnError = true;
-                            writer.write("ERROR: One or more seats already sold!\n");
-                            break;
-                        }
-
-                    } else if (currentVoyage instanceof PremiumVoyage) {
-                        PremiumVoyage premiumVoyage = (PremiumVoyage) currentVoyage;
-                        numberOfSeats = premiumVoyage.getNumberOfSeats();
-                        row = premiumVoyage.getRow(seatNumber);
-                        column = premiumVoyage.getColumn(seatNumber);
-
-                        if (seatNumber < 1) {
-                            isThereAnError = true;
-                            writer.write("ERROR: " + seatNumber + " is not a positive integer, seat number must be a positive integer!\n");
-                            break;
-                        } else if (seatNumber > numberOfSeats) {
-                            isThereAnError = true;
-                            writer.write("ERROR: There is no such a seat!\n");
-                            break;
-
-                        } else if (Objects.equals(premiumVoyage.getSeatPlan().get(row - 1)[column - 1], "RX")) {
-                            isThereAnError = true;
-                            writer.write("ERROR: One or more seats already sold!\n");
-                            break;
-                        } else if (Objects.equals(premiumVoyage.getSeatPlan().get(row - 1)[column - 1], "PX")) {
-                            isThereAnError = true;
-                            writer.write("ERROR: One or more seats already sold!\n");
-                            break;
-                        }
-
-                    } else if (currentVoyage instanceof MinibusVoyage) {
-                        MinibusVoyage minibusVoyage = (MinibusVoyage) currentVoyage;
-                        numberOfSeats = minibusVoyage.getNumberOfSeats();
-                        row = minibusVoyage.getRow(seatNumber);
-                        column = minibusVoyage.getColumn(seatNumber);
-
-                        if (seatNumber < 1) {
-                            isThereAnError = true;
-                            writer.write("ERROR: " + seatNumber + " is not a positive integer, seat number must be a positive integer!\n");
-                            break;
-                        } else if (seatNumber > numberOfSeats) {
-                            isThereAnError = true;
-                            writer.write("ERROR: There is no such a seat!\n");
-                            break;
-
-                        } else if (Objects.equals(minibusVoyage.getSeatPlan().get(row - 1)[column - 1], "RX")) {
-                            isThereAnError = true;
-                            writer.write("ERROR: One or more seats already sold!\n");
-                            break;
-                        }
-                    }
-                }
-            }
-
-            if (isThereAnError == false) {
-                ArrayList<String[]> seatPlan;
-
-                for (int seatNumber : seatsNumbers) {
-                    int row = 0;
-                    int column = 0;
-                    double regularSeatPrice;
-                    double premiumSeatPrice = 0;
-
-                    if (currentVoyage instanceof StandartVoyage) {
-                        StandartVoyage standartVoyage = (StandartVoyage) currentVoyage;
-                        numberOfSeats = standartVoyage.getNumberOfSeats();
-                        row = standartVoyage.getRow(seatNumber);
-                        column = standartVoyage.getColumn(seatNumber);
-                        regularSeatPrice = standartVoyage.getPrice();
-
-                        seatPlan = standartVoyage.getSeatPlan();
-
-                        if (Objects.equals(seatPlan.get(row - 1)[column - 1], "R")) {
-                            moneyEarned += regularSeatPrice;
-                        }
-
-                        seatPlan.get(row - 1)[column - 1] = "RX";
-                        standartVoyage.setSeatPlan(seatPlan); //The seat plan of the voyage is updated with the sold seat that was previously occupied.
-
-                    } else if (currentVoyage instanceof PremiumVoyage) {
-                        PremiumVoyage premiumVoyage = (PremiumVoyage) currentVoyage;
-                        numberOfSeats = premiumVoyage.getNumberOfSeats();
-                        row = premiumVoyage.getRow(seatNumber);
-                        column = premiumVoyage.getColumn(seatNumber);
-                        regularSeatPrice = premiumVoyage.getPrice();
-                        premiumSeatPrice = premiumVoyage.getPremiumSeatPrice();
-
-                        seatPlan = premiumVoyage.getSeatPlan();
-
-                        if (Objects.equals(seatPlan.get(row - 1)[column - 1], "P")) {
-                            moneyEarned += premiumSeatPrice;
-                            seatPlan.get(row - 1)[column - 1] = "PX";
-
-                        } else if (Objects.equals(seatPlan.get(row - 1)[column - 1], "R")) {
-                            moneyEarned += regularSeatPrice;
-                            seatPlan.get(row - 1)[column - 1] = "RX";
-                        }
-
-                        premiumVoyage.setSeatPlan(seatPlan); //The seat plan of the voyage is updated with the sold seat that was previously occupied.
-
-                    } else if (currentVoyage instanceof MinibusVoyage) {
-                        MinibusVoyage minibusVoyage = (MinibusVoyage) currentVoyage;
-                        numberOfSeats = minibusVoyage.getNumberOfSeats();
-                        row = minibusVoyage.getRow(seatNumber);
-                        column = minibusVoyage.getColumn(seatNumber);
-                        regularSeatPrice = minibusVoyage.getPrice();
-
-                        seatPlan = minibusVoyage.getSeatPlan();
-
-                        if (Objects.equals(seatPlan.get(row - 1)[column - 1], "R")) {
-                            moneyEarned += regularSeatPrice;
-                        }
-                        seatPlan.get(row - 1)[column - 1] = "RX";
-                        minibusVoyage.setSeatPlan(seatPlan); //The seat plan of the voyage is updated with the sold seat that was previously occupied.
+                double regularSeatPrice = currentVoyage.getPrice();
+                double premiumSeatPrice = currentVoyage.getPremiumSeatPrice(); //Only used by layouts that have premium seats.
+
+                for (int i = 0; i < seatList.size(); i++) {
+                    int seatNumber = seatList.get(i);
+                    if (seatMap.isPremium(seatNumber)) {
+                        moneyEarned += premiumSeatPrice;
+                    } else {
+                        moneyEarned += regularSeatPrice;
                     }
+                    seatMap.occupy(seatNumber); //The seat map of the voyage is updated with the sold seat.
                 }
 
                 double previousRevenue = currentVoyage.getRevenue();
                 double totalRevenue = previousRevenue + moneyEarned;
                 currentVoyage.setRevenue(totalRevenue); //The revenue of that voyage is updated with the money earned from the sold tickets.
+                currentVoyage.markModified();
+                if (listener != null) {
+                    listener.ticketsSold(currentVoyage, seatList);
+                }
 
-                writer.write("Seat " + line[2].replace("_", "-") + " of the Voyage " +
+                writer.write("Seat ");
+                line.write(2, '_', '-', writer); //The seats are echoed with dashes in place of the underscores.
+                writer.write(" of the Voyage " +
                         currentVoyage.getVoyageID() + " from " + currentVoyage.getFrom() + " to " + currentVoyage.getTo() +
-                        " was successfully sold for " + formatValue(moneyEarned) + " TL.\n");
+                        " was successfully sold for ");
+                MoneyFormat.append(writer, moneyEarned);
+                writer.write(" TL.\n");
             }
         }
     }
@@ -457,205 +318,108 @@ public class VoyageManagement implements IVoyageManegement {
     ///**
     // * Refunds the ticket(s) for the specified voyage and seat number(s).
     // *
-    // * @param voyages The list of voyages.
-    // * @param writer  The FileWriter object to write output.
+    // * @param line    The fields of the command line.
+    // * @param voyages The registry of voyages.
+    // * @param writer  The ReportSink the output is written into.
     // * @throws IOException If an I/O error occurs.
     // */
     @Override
-    public void refundTicket(List<Voyage> voyages, FileWriter writer) throws IOException {
+    public void refundTicket(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException {
         boolean isThereAnError = false;
         double totalMoneyRefunded = 0;
         Voyage currentVoyage = null;
-        List<Integer> seatsNumbers = new ArrayList<>();
 
-        if (line.length != 3) {
+        if (line.length() != 3) {
             isThereAnError = true;
+            error(ErrorKind.USAGE);
             writer.write("ERROR: Erroneous usage of \"REFUND_TICKET\" command!\n");
         }
 
         if (isThereAnError == false) {
             boolean isThereVoyage = false;
-            try {
-                int voyageID = Integer.parseInt(line[1]);
-            } catch (NumberFormatException e) {
+            long parsedID = line.parseInt(1);
+            if (parsedID == NumberParser.INVALID) {
                 isThereAnError = true;
-                writer.write("ERROR: There is no voyage with ID of " + line[1] + "!\n");
+                error(ErrorKind.NO_SUCH_VOYAGE);
+                writer.write("ERROR: There is no voyage with ID of " + line.get(1) + "!\n");
             }
 
             if (isThereAnError == false) {
-                int voyageID = Integer.parseInt(line[1]);
-                for (Voyage voyage : voyages) {
-                    if (voyage.getVoyageID() == voyageID) {
-                        isThereVoyage = true;
-                        currentVoyage = voyage;
-                        break;
-                    }
-                }
+                int voyageID = (int) parsedID;
+                currentVoyage = voyages.get(voyageID);
+                isThereVoyage = currentVoyage != null;
             }
 
             if (isThereVoyage == false) { //If there is no voyage with the specified ID, it prints an error
                 isThereAnError = true;
-                writer.write("ERROR: There is no voyage with ID of " + line[1] + "!\n");
+                error(ErrorKind.NO_SUCH_VOYAGE);
+                writer.write("ERROR: There is no voyage with ID of " + line.get(1) + "!\n");
             }
         }
 
         if (isThereAnError == false) {
-            String[] seats = line[2].split("_");
-
-            for (String seat : seats) {
-                try {
-                    int seatNumber = Integer.parseInt(seat);
-                } catch (NumberFormatException e) {
-                    isThereAnError = true;
-                    writer.write("ERROR: " + seat + " is not a positive integer, seat number must be a positive integer!");
-                }
-                if (isThereAnError == false) {
-                    int seatNumber = Integer.parseInt(seat);
-                    seatsNumbers.add(seatNumber);
-                }
+            isThereAnError = !seatList.parse(line, 2, writer);
+            if (isThereAnError) {
+                error(ErrorKind.INVALID_SEAT);
             }
         }
 
-
         if (isThereAnError == false) {
-            int voyageID = Integer.parseInt(line[1]);
-            int numberOfSeats = 0;
-
-            for (int i = 0; i < seatsNumbers.size(); i++) {
-                int count = 0;
-                for (int j = 0; j < seatsNumbers.size(); j++) {
-                    if (Objects.equals(seatsNumbers.get(i), seatsNumbers.get(j))) {
-                        count++;
-                    }
-                }
-                if (count > 1) {
-                    writer.write("ERROR: Seat " + seatsNumbers.get(i) + " cannot be refund more than once.\n");
-                    isThereAnError = true;
-                    break;
-                }
-            }
-
-            if (isThereAnError == false) {
-
-                for (int seatNumber : seatsNumbers) {
-                    int row = 0;
-                    int column = 0;
-
-                    if (isThereAnError == false) {
-
-                        if (currentVoyage instanceof StandartVoyage) {
-                            StandartVoyage standartVoyage = (StandartVoyage) currentVoyage;
-                            numberOfSeats = standartVoyage.getNumberOfSeats();
-                            row = standartVoyage.getRow(seatNumber);
-                            column = standartVoyage.getColumn(seatNumber);
-
-                            if (seatNumber < 1) {
-                                isThereAnError = true;
-                                writer.write("ERROR: " + seatNumber + " is not a positive integer, seat number must be a positive integer!\n");
-                                break;
-
-                            } else if (seatNumber > numberOfSeats) {
-                                isThereAnError = true;
-                                writer.write("ERROR: There is no such a seat!\n");
-                                break;
-
-                            } else if (!Objects.equals(standartVoyage.getSeatPlan().get(row - 1)[column - 1], "RX")) {
-                                isThereAnError = true;
-                                writer.write("ERROR: One or more seats are already empty!\n");
-                                break;
-                            }
-
-                        } else if (currentVoyage instanceof PremiumVoyage) {
-                            PremiumVoyage premiumVoyage = (PremiumVoyage) currentVoyage;
-                            numberOfSeats = premiumVoyage.getNumberOfSeats();
-                            row = premiumVoyage.getRow(seatNumber);
-                            column = premiumVoyage.getColumn(seatNumber);
-
-                            if (seatNumber < 1) {
-                                isThereAnError = true;
-                                writer.write("ERROR: " + seatNumber + " is not a positive integer, seat number must be a positive integer!\n");
-                                break;
-                            } else if (seatNumber > numberOfSeats) {
-                                isThereAnError = true;
-                                writer.write("ERROR: There is no such a seat!\n");
-                                break;
-
-                            } else if (!Objects.equals(premiumVoyage.getSeatPlan().get(row - 1)[column - 1], "RX") && !Objects.equals(premiumVoyage.getSeatPlan().get(row - 1)[column - 1], "PX")) {
-                                isThereAnError = true;
-                                writer.write("ERROR: One or more seats are already empty!\n");
-                                break;
-                            }
-
-                        } else if (currentVoyage instanceof MinibusVoyage) {
-                            isThereAnError = true;
-                            writer.write("ERROR: Minibus tickets are not refundable!\n");
-                            break;
-                        }
-                    }
-                }
+            SeatMap seatMap = currentVoyage.getSeatMap();
+
+            //Duplicates, seat ranges and empty seats are all checked in a single pass over the seat list.
+            int problem = seatList.check(seatMap, true);
+            if (problem == SeatList.DUPLICATE) {
+                error(ErrorKind.INVALID_SEAT);
+                writer.write("ERROR: Seat " + seatList.getProblemSeat() + " cannot be refund more than once.\n");
+            } else if (seatList.size() > 0 && currentVoyage.getLayout().isRefundable() == false) {
+                error(ErrorKind.NOT_REFUNDABLE);
+                writer.write("ERROR: Minibus tickets are not refundable!\n");
+                problem = SeatList.UNAVAILABLE;
+            } else if (problem == SeatList.NOT_POSITIVE) {
+                error(ErrorKind.INVALID_SEAT);
+                writer.write("ERROR: " + seatList.getProblemSeat() + " is not a positive integer, seat number must be a positive integer!\n");
+            } else if (problem == SeatList.NO_SUCH_SEAT) {
+                error(ErrorKind.INVALID_SEAT);
+                writer.write("ERROR: There is no such a seat!\n");
+            } else if (problem == SeatList.UNAVAILABLE) {
+                error(ErrorKind.SEAT_UNAVAILABLE);
+                writer.write("ERROR: One or more seats are already empty!\n");
             }
+            isThereAnError = problem != SeatList.VALID;
 
             if (isThereAnError == false) {
-                ArrayList<String[]> seatPlan;
-
-                for (int seatNumber : seatsNumbers) {
-                    int row = 0;
-                    int column = 0;
-                    double regularSeatPrice;
-                    double premiumSeatPrice = 0;
-                    double refundedMoney = 0;
-                    int refundCut = 0;
-
-                    if (currentVoyage instanceof StandartVoyage) {
-                        StandartVoyage standartVoyage = (StandartVoyage) currentVoyage;
-                        numberOfSeats = standartVoyage.getNumberOfSeats();
-                        row = standartVoyage.getRow(seatNumber);
-                        column = standartVoyage.getColumn(seatNumber);
-                        regularSeatPrice = standartVoyage.getPrice();
-                        refundCut = standartVoyage.getRefundCut();
-                        refundedMoney = regularSeatPrice * (100 - refundCut) / 100; //The refunded money is the ticket price minus the refund cut percentage
-
-                        seatPlan = standartVoyage.getSeatPlan();
-
-                        if (Objects.equals(seatPlan.get(row - 1)[column - 1], "RX")) {
-                            totalMoneyRefunded += refundedMoney;
-                        }
-
-                        seatPlan.get(row - 1)[column - 1] = "R"; //When a ticket refund is made, that seat becomes empty again.
-                        standartVoyage.setSeatPlan(seatPlan);
-
-                    } else if (currentVoyage instanceof PremiumVoyage) {
-                        PremiumVoyage premiumVoyage = (PremiumVoyage) currentVoyage;
-                        numberOfSeats = premiumVoyage.getNumberOfSeats();
-                        row = premiumVoyage.getRow(seatNumber);
-                        column = premiumVoyage.getColumn(seatNumber);
-                        regularSeatPrice = premiumVoyage.getPrice();
-                        premiumSeatPrice = premiumVoyage.getPremiumSeatPrice();
-                        refundCut = premiumVoyage.getRefundCut();
-
-                        seatPlan = premiumVoyage.getSeatPlan();
-
-                        if (Objects.equals(seatPlan.get(row - 1)[column - 1], "PX")) {
-                            refundedMoney = premiumSeatPrice * (100 - refundCut) / 100;
-                            totalMoneyRefunded += refundedMoney;
-                            seatPlan.get(row - 1)[column - 1] = "P"; //When a ticket refund is made, that seat becomes empty again.
-
-                        } else if (Objects.equals(seatPlan.get(row - 1)[column - 1], "RX")) {
-                            refundedMoney = regularSeatPrice * (100 - refundCut) / 100;
-                            totalMoneyRefunded += refundedMoney;
-                            seatPlan.get(row - 1)[column - 1] = "R"; //When a ticket refund is made, that seat becomes empty again.
-                        }
-                        premiumVoyage.setSeatPlan(seatPlan);
+                double regularSeatPrice = currentVoyage.getPrice();
+                double premiumSeatPrice = currentVoyage.getPremiumSeatPrice();
+                int refundCut = currentVoyage.getRefundCut();
+
+                for (int i = 0; i < seatList.size(); i++) {
+                    int seatNumber = seatList.get(i);
+                    double refundedMoney; //The refunded money is the ticket price minus the refund cut percentage
+                    if (seatMap.isPremium(seatNumber)) {
+                        refundedMoney = premiumSeatPrice * (100 - refundCut) / 100;
+                    } else {
+                        refundedMoney = regularSeatPrice * (100 - refundCut) / 100;
                     }
+                    totalMoneyRefunded += refundedMoney;
+                    seatMap.release(seatNumber); //When a ticket refund is made, that seat becomes empty again.
                 }
 
                 double previousRevenue = currentVoyage.getRevenue();
                 double totalRevenue = previousRevenue - totalMoneyRefunded;
                 currentVoyage.setRevenue(totalRevenue);
+                currentVoyage.markModified();
+                if (listener != null) {
+                    listener.ticketsRefunded(currentVoyage, seatList);
+                }
 
-                writer.write("Seat " + line[2].replace("_", "-") + " of the Voyage " +
+                writer.write("Seat ");
+                line.write(2, '_', '-', writer); //The seats are echoed with dashes in place of the underscores.
+                writer.write(" of the Voyage " +
                         currentVoyage.getVoyageID() + " from " + currentVoyage.getFrom() + " to " + currentVoyage.getTo() +
-                        " was successfully refunded for " + formatValue(totalMoneyRefunded) + " TL.\n");
+                        " was successfully refunded for ");
+                MoneyFormat.append(writer, totalMoneyRefunded);
+                writer.write(" TL.\n");
             }
         }
     }
@@ -663,154 +427,236 @@ public class VoyageManagement implements IVoyageManegement {
     /**
      * Prints the details of a voyage, including its ID, route, seat plan, and revenue.
      *
-     * @param voyages List of Voyage objects containing all the voyages.
-     * @param writer  FileWriter object to write the output.
+     * @param line    The fields of the command line.
+     * @param voyages The registry containing all the voyages.
+     * @param writer  The ReportSink the output is written into.
      * @throws IOException If an I/O error occurs.
      */
     @Override
-    public void printVoyage(List<Voyage> voyages, FileWriter writer) throws IOException {
+    public void printVoyage(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException {
         boolean isThereAnError = false;
         Voyage voyage = null;
 
-        if (line.length != 2) {
+        if (line.length() != 2) {
             isThereAnError = true;
+            error(ErrorKind.USAGE);
             writer.write("ERROR: Erroneous usage of \"PRINT_VOYAGE\" command!\n");
         }
 
         if (isThereAnError == false) {
-            try {
-                int voyageID = Integer.parseInt(line[1]);
+            long parsedID = line.parseInt(1);
+            if (parsedID != NumberParser.INVALID) {
+                int voyageID = (int) parsedID;
                 if (!(voyageID > 0)) { //The ID must be greater than 0.
                     isThereAnError = true;
+                    error(ErrorKind.INVALID_ARGUMENT);
                     writer.write("ERROR: " + voyageID + " is not a positive integer, ID of a voyage must be a positive integer!\n");
                 } else {
-                    boolean isThereVoyage = false;
-
-                    for (int i = 0; i < voyages.size(); i++) {
-                        if (voyages.get(i).getVoyageID() == voyageID) {
-                            voyage = voyages.get(i);
-                            isThereVoyage = true;
-                        }
-                    }
+                    voyage = voyages.get(voyageID);
+                    boolean isThereVoyage = voyage != null;
 
                     if (isThereVoyage == false) { //If there is no voyage with that ID, it will display an error message.
                         isThereAnError = true;
+                        error(ErrorKind.NO_SUCH_VOYAGE);
                         writer.write("ERROR: There is no voyage with ID of " + voyageID + "!\n");
                     }
                 }
-            } catch (NumberFormatException e) {
+            } else {
                 isThereAnError = true;
-                writer.write("ERROR: " + line[1] + " is not a positive integer, ID of a voyage must be a positive integer!\n");
+                error(ErrorKind.INVALID_ARGUMENT);
+                writer.write("ERROR: " + line.get(1) + " is not a positive integer, ID of a voyage must be a positive integer!\n");
             }
         }
 
         if (isThereAnError == false) {
-            writer.write(
-                    "Voyage " + voyage.getVoyageID() + "\n" +
-                            voyage.getFrom() + "-" + voyage.getTo() + "\n");
-
-            if (voyage instanceof StandartVoyage) {
-                StandartVoyage currentVoyage = (StandartVoyage) voyage;
-                List<String[]> seatPlan = currentVoyage.getSeatPlan();
-                for (String[] seatRow : seatPlan) { //Adjustments have been made for the seat plan to be printed properly.
-                    int j = 0;
-                    for (String seat : seatRow) {
-                        if (Objects.equals(seat, "RX")) {
-                            if (j == 3) {
-                                writer.write("X");
-                            } else {
-                                writer.write("X" + " ");
-                            }
-                        } else {
-                            if (j == 3) {
-                                writer.write("*");
-                            } else {
-                                writer.write("*" + " ");
-                            }
-                        }
-                        j++;
-                        if (j == 2) {
-                            writer.write("| ");
-                        }
-                    }
-                    writer.write("\n");
-                }
-            } else if (voyage instanceof PremiumVoyage) {
-                PremiumVoyage currentVoyage = (PremiumVoyage) voyage;
-                List<String[]> seatPlan = currentVoyage.getSeatPlan();
-
-                for (String[] seatRow : seatPlan) { //Adjustments have been made for the seat plan to be printed properly.
-                    int j = 0;
-                    for (String seat : seatRow) {
-                        if (Objects.equals(seat, "RX")) {
-                            if (j == 2) {
-                                writer.write("X");
-                            } else {
-                                writer.write("X" + " ");
-                            }
-                        } else if (Objects.equals(seat, "PX")) {
-                            if (j == 2) {
-                                writer.write("X");
-                            } else {
-                                writer.write("X" + " ");
-                            }
-                        } else {
-                            if (j == 2) {
-                                writer.write("*");
-                            } else {
-                                writer.write("*" + " ");
-                            }
-                        }
-                        j++;
-                        if (j == 1) {
-                            writer.write("| ");
-                        }
-                    }
-                    writer.write("\n");
+            writeDetails(voyage, writer);
+        }
+    }
+
+    /**
+     * Finds the first free seats of a voyage, optionally only premium or regular seats or adjacent pairs of seats,
+     * and prints them with their total price. Nothing is sold.
+     *
+     * @param line    The fields of the command line.
+     * @param voyages The registry containing all the voyages.
+     * @param writer  The ReportSink the output is written into.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void findSeats(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException {
+        boolean isThereAnError = false;
+        Voyage voyage = null;
+        SeatPreference preference = SeatPreference.ANY; //The kind of seats is optional.
+        int count = 0;
+
+        if (line.length() != 3 && line.length() != 4) {
+            isThereAnError = true;
+            error(ErrorKind.USAGE);
+            writer.write("ERROR: Erroneous usage of \"FIND_SEATS\" command!\n");
+        }
+
+        if (isThereAnError == false && line.length() == 4) {
+            preference = null;
+            for (SeatPreference candidate : SeatPreference.values()) {
+                if (line.fieldEquals(3, candidate.name())) {
+                    preference = candidate;
                 }
+            }
+            if (preference == null) {
+                isThereAnError = true;
+                error(ErrorKind.USAGE);
+                writer.write("ERROR: Erroneous usage of \"FIND_SEATS\" command!\n");
+            }
+        }
+
+        if (isThereAnError == false) {
+            long parsedID = line.parseInt(1);
+            if (parsedID != NumberParser.INVALID) {
+                voyage = voyages.get((int) parsedID);
+            }
+            if (voyage == null) {
+                isThereAnError = true;
+                error(ErrorKind.NO_SUCH_VOYAGE);
+                writer.write("ERROR: There is no voyage with ID of " + line.get(1) + "!\n");
+            }
+        }
+
+        if (isThereAnError == false) {
+            long parsedCount = line.parseInt(2);
+            if (parsedCount == NumberParser.INVALID || parsedCount < 1) { //At least one seat must be asked for.
+                isThereAnError = true;
+                error(ErrorKind.INVALID_ARGUMENT);
+                writer.write("ERROR: " + line.get(2) + " is not a positive integer, number of seats must be a positive integer!\n");
+            } else {
+                count = (int) parsedCount;
+            }
+        }
 
-            } else if (voyage instanceof MinibusVoyage) {
-                MinibusVoyage currentVoyage = (MinibusVoyage) voyage;
-                List<String[]> seatPlan = currentVoyage.getSeatPlan();
-                for (String[] seatRow : seatPlan) { //Adjustments have been made for the seat plan to be printed properly.
-                    int j = 0;
-                    for (String seat : seatRow) {
-                        if (Objects.equals(seat, "RX")) {
-                            if (j == 1) {
-                                writer.write("X");
-                            } else {
-                                writer.write("X" + " ");
-                            }
-                        } else {
-                            if (j == 1) {
-                                writer.write("*");
-                            } else {
-                                writer.write("*" + " ");
-                            }
-                        }
-
-                        j++;
+        if (isThereAnError == false) {
+            int[] seats = voyage.findFreeSeats(count, preference);
+            long wanted = preference == SeatPreference.PAIR ? 2L * count : count;
+            if (seats.length < wanted) {
+                error(ErrorKind.SEAT_UNAVAILABLE);
+                writer.write("ERROR: There are not " + count + " free " + preference.getDescription() + " in the Voyage " +
+                        voyage.getVoyageID() + "!\n");
+            } else {
+                SeatMap seatMap = voyage.getSeatMap();
+                double totalPrice = 0;
+                writer.write("Seat ");
+                for (int i = 0; i < seats.length; i++) {
+                    if (i > 0) {
+                        writer.write('-');
                     }
-                    writer.write("\n");
+                    writer.write(String.valueOf(seats[i]));
+                    totalPrice += seatMap.isPremium(seats[i]) ? voyage.getPremiumSeatPrice() : voyage.getPrice();
                 }
+                writer.write(" of the Voyage " + voyage.getVoyageID() + " from " + voyage.getFrom() + " to " +
+                        voyage.getTo() + " can be sold for ");
+                MoneyFormat.append(writer, totalPrice);
+                writer.write(" TL.\n");
             }
-            writer.write("Revenue: " + formatValue(voyage.getRevenue()) + "\n");
+        }
+    }
+
+    /**
+     * Lists the voyages from one city to another in ID order, with their free seats and prices. Only the voyages
+     * of that route are looked at, through the route index of the registry.
+     *
+     * @param line    The fields of the command line.
+     * @param voyages The registry containing all the voyages.
+     * @param writer  The ReportSink the output is written into.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void searchVoyages(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException {
+        if (line.length() != 3) {
+            error(ErrorKind.USAGE);
+            writer.write("ERROR: Erroneous usage of \"SEARCH_VOYAGES\" command!\n");
+        } else {
+            writeSearch(line, voyages.findRoute(line.get(1), line.get(2)), writer);
+        }
+    }
+
+    /**
+     * Lists the voyages of a route as searchVoyages does, over several registries that hold disjoint sets of IDs.
+     *
+     * @param line       The fields of the command line.
+     * @param registries The registries of existing voyages.
+     * @param writer     The ReportSink the output is written into.
+     * @throws IOException If an I/O error occurs while writing to the output file.
+     */
+    public void searchVoyages(CommandLine line, VoyageRegistry[] registries, ReportSink writer) throws IOException {
+        if (line.length() != 3) {
+            error(ErrorKind.USAGE);
+            writer.write("ERROR: Erroneous usage of \"SEARCH_VOYAGES\" command!\n");
+        } else {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Iterable<Voyage>[] routes = new Iterable[registries.length];
+            for (int i = 0; i < registries.length; i++) {
+                routes[i] = registries[i].findRoute(line.get(1), line.get(2));
+            }
+            writeSearch(line, VoyageRegistry.merge(routes), writer);
+        }
+    }
+
+    private void writeSearch(CommandLine line, Iterable<Voyage> route, ReportSink writer) throws IOException {
+        boolean isThereVoyage = false;
+        for (Voyage voyage : route) { //The free seats come from the running counts of the seat map, not from its seats.
+            isThereVoyage = true;
+            SeatMap seatMap = voyage.getSeatMap();
+            writer.write("Voyage " + voyage.getVoyageID() + " from " + voyage.getFrom() + " to " + voyage.getTo() +
+                    " has " + seatMap.countFreeRegular() + " free regular seats priced ");
+            MoneyFormat.append(writer, voyage.getPrice());
+            writer.write(" TL");
+            if (voyage.getLayout().hasPremiumSeats()) {
+                writer.write(" and " + seatMap.countFreePremium() + " free premium seats priced ");
+                MoneyFormat.append(writer, voyage.getPremiumSeatPrice());
+                writer.write(" TL");
+            }
+            writer.write(".\n");
+        }
+        if (isThereVoyage == false) {
+            error(ErrorKind.NO_SUCH_VOYAGE);
+            writer.write("ERROR: There is no voyage from " + line.get(1) + " to " + line.get(2) + "!\n");
         }
     }
 
     /**
      * Generates a Z report containing details of all voyages, including their IDs, routes, seat plans, and revenues.
      *
-     * @param voyages List of Voyage objects containing all the voyages.
-     * @param writer  FileWriter object to write the output.
+     * @param line    The fields of the command line.
+     * @param voyages The registry containing all the voyages.
+     * @param writer  The ReportSink the output is written into.
      * @throws IOException If an I/O error occurs.
      */
     @Override
-    public void ZReport(List<Voyage> voyages, FileWriter writer) throws IOException {
-        if (line.length != 1) {
+    public void ZReport(CommandLine line, VoyageRegistry voyages, ReportSink writer) throws IOException {
+        writeReport(line, voyages, voyages.size(), writer);
+    }
+
+    /**
+     * Prints a Z report of the voyages of several registries that hold disjoint sets of IDs, as ZReport does
+     * for a single registry.
+     *
+     * @param line       The fields of the command line.
+     * @param registries The registries of existing voyages.
+     * @param writer     The ReportSink the output is written into.
+     * @throws IOException If an I/O error occurs while writing to the output file.
+     */
+    public void ZReport(CommandLine line, VoyageRegistry[] registries, ReportSink writer) throws IOException {
+        int size = 0;
+        for (VoyageRegistry registry : registries) {
+            size += registry.size();
+        }
+        writeReport(line, VoyageRegistry.merge(registries), size, writer);
+    }
+
+    private void writeReport(CommandLine line, Iterable<Voyage> voyages, int size, ReportSink writer) throws IOException {
+        if (line.length() != 1) {
+            error(ErrorKind.USAGE);
             writer.write("ERROR: Erroneous usage of \"Z_REPORT\" command!\n");
         } else {
-            if (voyages.size() == 0) {
+            if (size == 0) {
                 writer.write("Z Report:\n" +
                         "----------------\n" +
                         "No Voyages Available!\n" +
@@ -818,131 +664,126 @@ public class VoyageManagement implements IVoyageManegement {
             } else {
                 writer.write("Z Report:\n" +
                         "----------------\n");
-                for (int i = 0; i < voyages.size(); i++) {
-                    writer.write(
-                            "Voyage " + voyages.get(i).getVoyageID() + "\n" +
-                                    voyages.get(i).getFrom() + "-" + voyages.get(i).getTo() + "\n");
-
-                    if (voyages.get(i) instanceof StandartVoyage) {
-                        StandartVoyage voyage = (StandartVoyage) voyages.get(i);
-                        List<String[]> seatPlan = voyage.getSeatPlan();
-                        for (String[] seatRow : seatPlan) { //Adjustments have been made for the seat plan to be printed properly.
-                            int j = 0;
-                            for (String seat : seatRow) {
-                                if (Objects.equals(seat, "RX")) {
-                                    if (j == 3) {
-                                        writer.write("X");
-                                    } else {
-                                        writer.write("X" + " ");
-                                    }
-                                } else {
-                                    if (j == 3) {
-                                        writer.write("*");
-                                    } else {
-                                        writer.write("*" + " ");
-                                    }
-                                }
-                                j++;
-                                if (j == 2) {
-                                    writer.write("| ");
-                                }
-                            }
-                            writer.write("\n");
-                        }
-
-                    } else if (voyages.get(i) instanceof PremiumVoyage) {
-                        PremiumVoyage voyage = (PremiumVoyage) voyages.get(i);
-                        List<String[]> seatPlan = voyage.getSeatPlan();
-
-                        for (String[] seatRow : seatPlan) { //Adjustments have been made for the seat plan to be printed properly.
-                            int j = 0;
-                            for (String seat : seatRow) {
-                                if (Objects.equals(seat, "RX")) {
-                                    if (j == 2) {
-                                        writer.write("X");
-                                    } else {
-                                        writer.write("X" + " ");
-                                    }
-                                } else if (Objects.equals(seat, "PX")) {
-                                    if (j == 2) {
-                                        writer.write("X");
-                                    } else {
-                                        writer.write("X" + " ");
-                                    }
-                                } else {
-                                    if (j == 2) {
-                                        writer.write("*");
-                                    } else {
-                                        writer.write("*" + " ");
-                                    }
-                                }
-                                j++;
-                                if (j == 1) {
-                                    writer.write("| ");
-                                }
-                            }
-                            writer.write("\n");
-                        }
-
-                    } else if (voyages.get(i) instanceof MinibusVoyage) {
-                        MinibusVoyage voyage = (MinibusVoyage) voyages.get(i);
-                        List<String[]> seatPlan = voyage.getSeatPlan();
-                        for (String[] seatRow : seatPlan) { //Adjustments have been made for the seat plan to be printed properly.
-                            int j = 0;
-                            for (String seat : seatRow) {
-                                if (Objects.equals(seat, "RX")) {
-                                    if (j == 1) {
-                                        writer.write("X");
-                                    } else {
-                                        writer.write("X" + " ");
-                                    }
-                                } else {
-                                    if (j == 1) {
-                                        writer.write("*");
-                                    } else {
-                                        writer.write("*" + " ");
-                                    }
-                                }
-                                j++;
-                            }
-                            writer.write("\n");
-                        }
-                    }
-                    writer.write("Revenue: " + formatValue(voyages.get(i).getRevenue()) +
-                            "\n----------------\n");
-
+                for (Voyage currentVoyage : voyages) { //The voyages are iterated in ID order.
+                    writeDetails(currentVoyage, writer); //Only the voyages changed since the previous report are rendered again.
+                    writer.write("----------------\n");
                 }
             }
         }
     }
 
     /**
-     * Executes a voyage management operation based on the provided command.
+     * Writes the ID, route, seat plan and revenue of a voyage. The rendered text is kept on the voyage and
+     * reused until the voyage is modified again, unless no seat of the voyage has ever been sold: its empty seat
+     * plan is quick to render again, and keeping the text would cost more memory than the voyage itself.
      *
-     * @param writer FileWriter object to write the output.
+     * @param voyage The voyage whose details are written.
+     * @param writer The ReportSink the output is written into.
      * @throws IOException If an I/O error occurs.
      */
-    public void voyageManagementOperation(FileWriter writer) throws IOException {
-        if (line[0].equals("INIT_VOYAGE")) {
-            this.initVoyage(voyages, writer);
+    private void writeDetails(Voyage voyage, ReportSink writer) throws IOException {
+        String details = voyage.getDetails();
+        if (details == null) {
+            if (voyage.getSeatMap().isMaterialized() == false) { //Details that are not kept are written straight to the output.
+                renderDetails(voyage, writer);
+                return;
+            }
+            scratch.reset();
+            renderDetails(voyage, scratch);
+            details = scratch.toString();
+            voyage.setDetails(details);
+        }
+        writer.write(details);
+    }
 
-        } else if (line[0].equals("Z_REPORT")) {
-            this.ZReport(voyages, writer);
+    private static void renderDetails(Voyage voyage, ReportSink writer) throws IOException {
+        writer.write("Voyage " + voyage.getVoyageID() + "\n" +
+                voyage.getFrom() + "-" + voyage.getTo() + "\n");
+        voyage.getSeatMap().render(writer);
+        writer.write("Revenue: ");
+        MoneyFormat.append(writer, voyage.getRevenue());
+        writer.write('\n');
+    }
 
-        } else if (line[0].equals("CANCEL_VOYAGE")) {
-            this.cancelVoyage(voyages, writer);
+    /**
+     * Executes a voyage management operation based on the provided command.
+     *
+     * @param line   The fields of the command line, the first one being the command name.
+     * @param writer The ReportSink the output is written into.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void voyageManagementOperation(CommandLine line, ReportSink writer) throws IOException {
+        if (metrics == null) {
+            execute(line, writer);
+            return;
+        }
+        firstError = null;
+        long start = System.nanoTime();
+        execute(line, writer);
+        metrics.record(line.command(), System.nanoTime() - start, firstError);
+    }
 
-        } else if (line[0].equals("PRINT_VOYAGE")) {
-            this.printVoyage(voyages, writer);
+    /**
+     * Executes a Z_REPORT or a SEARCH_VOYAGES command over several registries that hold disjoint sets of IDs, as
+     * if their voyages were in a single registry.
+     *
+     * @param line       The fields of the command line, the first one being the command name.
+     * @param registries The registries of existing voyages.
+     * @param writer     The ReportSink the output is written into.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void voyageManagementOperation(CommandLine line, VoyageRegistry[] registries, ReportSink writer) throws IOException {
+        firstError = null;
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (line.command() == Command.SEARCH_VOYAGES) {
+            searchVoyages(line, registries, writer);
+        } else {
+            ZReport(line, registries, writer);
+        }
+        if (metrics != null) {
+            metrics.record(line.command(), System.nanoTime() - start, firstError);
+        }
+    }
 
-        } else if (line[0].equals("SELL_TICKET")) {
-            this.sellTicket(voyages, writer);
+    private void error(ErrorKind kind) { //Only the first error of a command is counted.
+        if (firstError == null) {
+            firstError = kind;
+        }
+    }
 
-        } else if (line[0].equals("REFUND_TICKET")) {
-            this.refundTicket(voyages, writer);
+    private void execute(CommandLine line, ReportSink writer) throws IOException {
+        Command command = line.command();
+        if (command == null) {
+            error(ErrorKind.UNKNOWN_COMMAND);
+            writer.write("ERROR: There is no command namely " + line.get(0) + "!\n");
+            return;
+        }
 
-        } else {
-            writer.write("ERROR: There is no command namely " + line[0] + "!\n");
+        switch (command) {
+            case INIT_VOYAGE:
+                this.initVoyage(line, voyages, writer);
+                break;
+            case Z_REPORT:
+                this.ZReport(line, voyages, writer);
+                break;
+            case CANCEL_VOYAGE:
+                this.cancelVoyage(line, voyages, writer);
+                break;
+            case PRINT_VOYAGE:
+                this.printVoyage(line, voyages, writer);
+                break;
+            case SELL_TICKET:
+                this.sellTicket(line, voyages, writer);
+                break;
+            case REFUND_TICKET:
+                this.refundTicket(line, voyages, writer);
+                break;
+            case FIND_SEATS:
+                this.findSeats(line, voyages, writer);
+                break;
+            case SEARCH_VOYAGES:
+                this.searchVoyages(line, voyages, writer);
+                break;
         }
     }
 }
@@ -0,0 +1,335 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class VoyageRegistry implements Iterable<Voyage> {
+    private static final int INITIAL_CAPACITY = 64; //Must be a power of two so that the slot can be found with a bit mask.
+    private static final Comparator<Voyage> BY_ID = new Comparator<Voyage>() {
+        @Override
+        public int compare(Voyage first, Voyage second) {
+            return Integer.compare(first.getVoyageID(), second.getVoyageID());
+        }
+    };
+
+    private int[] keys; //Open addressing table keyed by the voyage ID, a null value marks an empty slot.
+    private Voyage[] values;
+    private int size;
+
+    private Voyage[] ordered; //Voyages in the order they are kept for the Z report, sorted lazily.
+    private int orderedSize;
+    private boolean isSorted = true;
+    private int removedCount; //Number of entries in "ordered" that are no longer registered.
+    private final RouteIndex routes = new RouteIndex(); //Voyages by their cities, kept up to date by add and remove.
+    private final SeatStore seatStore;
+    private VoyageSource source; //Holds the voyages that have not been looked up yet; null once all of them are registered.
+
+    /**
+     * Constructs an empty VoyageRegistry whose voyages keep their seats on the heap.
+     */
+    public VoyageRegistry() {
+        this(SeatStore.HEAP);
+    }
+
+    /**
+     * Constructs an empty VoyageRegistry.
+     *
+     * @param seatStore The store the seats of the voyages of the registry are kept in.
+     */
+    public VoyageRegistry(SeatStore seatStore) {
+        this.seatStore = seatStore;
+        keys = new int[INITIAL_CAPACITY];
+        values = new Voyage[INITIAL_CAPACITY];
+        ordered = new Voyage[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Constructs a VoyageRegistry over the voyages kept in a source, such as a seat store that is opened again. A
+     * voyage of the source is only constructed when it is first looked up, or when the voyages are iterated, so the
+     * registry is ready at once however many voyages the source holds. As a lookup may register a voyage, such a
+     * registry must not be shared between threads.
+     *
+     * @param seatStore The store the seats of the voyages of the registry are kept in.
+     * @param source    The source of the voyages that are already stored.
+     */
+    public VoyageRegistry(SeatStore seatStore, VoyageSource source) {
+        this(seatStore);
+        this.source = source;
+    }
+
+    /**
+     * Returns the store the voyages of the registry keep their seats in; new voyages take their seat plans from it.
+     *
+     * @return The store of the seats.
+     */
+    public SeatStore getSeatStore() {
+        return seatStore;
+    }
+
+    /**
+     * Returns the voyage with the given ID.
+     *
+     * @param voyageID The ID of the voyage to look up.
+     * @return The voyage with that ID, or null if there is no such voyage.
+     */
+    public Voyage get(int voyageID) {
+        Voyage voyage = find(voyageID);
+        if (voyage == null && source != null) {
+            voyage = source.load(voyageID);
+            if (voyage != null) {
+                add(voyage);
+            }
+        }
+        return voyage;
+    }
+
+    /**
+     * Checks whether a voyage with the given ID is registered.
+     *
+     * @param voyageID The ID of the voyage to look up.
+     * @return True if there is a voyage with that ID, false otherwise.
+     */
+    public boolean contains(int voyageID) {
+        return get(voyageID) != null;
+    }
+
+    /**
+     * Registers a new voyage. The caller is responsible for checking that its ID is not already in use.
+     *
+     * @param voyage The voyage to be registered.
+     */
+    public void add(Voyage voyage) {
+        if ((size + 1) * 4 > keys.length * 3) { //The table is kept at most three quarters full.
+            resize(keys.length * 2);
+        }
+        insert(voyage.getVoyageID(), voyage);
+        size++;
+
+        if (orderedSize == ordered.length) {
+            compact();
+            if (orderedSize == ordered.length) {
+                ordered = Arrays.copyOf(ordered, ordered.length * 2);
+            }
+        }
+        if (orderedSize > 0 && ordered[orderedSize - 1].getVoyageID() > voyage.getVoyageID()) {
+            isSorted = false; //Voyages usually arrive in increasing ID order, so sorting is only needed otherwise.
+        }
+        ordered[orderedSize++] = voyage;
+        routes.add(voyage);
+    }
+
+    /**
+     * Removes the voyage with the given ID and frees the storage of its seats.
+     *
+     * @param voyageID The ID of the voyage to be removed.
+     * @return The removed voyage, or null if there was no such voyage.
+     */
+    public Voyage remove(int voyageID) {
+        if (source != null) {
+            get(voyageID); //A voyage that is only in the source is registered first, so that its seats are freed as well.
+        }
+        int mask = keys.length - 1;
+        int slot = hash(voyageID) & mask;
+        while (values[slot] != null && keys[slot] != voyageID) {
+            slot = (slot + 1) & mask;
+        }
+        Voyage removed = values[slot];
+        if (removed == null) {
+            return null;
+        }
+
+        //The following entries of the same cluster are shifted back so that no lookup chain is broken.
+        int hole = slot;
+        for (int next = (hole + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        values[hole] = null;
+        size--;
+        removedCount++; //The entry in "ordered" is dropped lazily on the next ordered access.
+        routes.remove(removed);
+        if (removed.getSeatMap() != null) {
+            removed.getSeatMap().free();
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the number of registered voyages.
+     *
+     * @return The number of registered voyages.
+     */
+    public int size() {
+        loadAll();
+        return size;
+    }
+
+    /**
+     * Returns the registered voyages from one city to another in increasing ID order, without looking at the
+     * voyages of other routes.
+     *
+     * @param from The city the voyages depart from.
+     * @param to   The city the voyages arrive at.
+     * @return The voyages of the route.
+     */
+    public Iterable<Voyage> findRoute(String from, String to) {
+        loadAll();
+        return routes.find(from, to);
+    }
+
+    public RouteIndex getRoutes() {
+        loadAll();
+        return routes;
+    }
+
+    /**
+     * Returns an iterator over the registered voyages in increasing ID order.
+     *
+     * @return An iterator over the registered voyages in increasing ID order.
+     */
+    @Override
+    public Iterator<Voyage> iterator() {
+        loadAll();
+        compact();
+        if (isSorted == false) {
+            Arrays.sort(ordered, 0, orderedSize, BY_ID);
+            isSorted = true;
+        }
+        final Voyage[] snapshot = ordered;
+        final int count = orderedSize;
+        return new Iterator<Voyage>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < count;
+            }
+
+            @Override
+            public Voyage next() {
+                if (index >= count) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot[index++];
+            }
+        };
+    }
+
+    /**
+     * Returns the voyages of several registries, or of other sources in increasing ID order, that hold disjoint
+     * sets of IDs, merged in increasing ID order. None of the sources may be changed while the result is iterated.
+     *
+     * @param registries The registries to be merged.
+     * @return The voyages of all registries in increasing ID order.
+     */
+    public static Iterable<Voyage> merge(final Iterable<Voyage>[] registries) {
+        return new Iterable<Voyage>() {
+            @Override
+            public Iterator<Voyage> iterator() {
+                final Iterator<?>[] sources = new Iterator<?>[registries.length];
+                final Voyage[] heads = new Voyage[registries.length]; //The next voyage of every registry, null once it is exhausted.
+                for (int i = 0; i < registries.length; i++) {
+                    sources[i] = registries[i].iterator();
+                    heads[i] = sources[i].hasNext() ? (Voyage) sources[i].next() : null;
+                }
+                return new Iterator<Voyage>() {
+                    @Override
+                    public boolean hasNext() {
+                        for (Voyage head : heads) {
+                            if (head != null) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public Voyage next() {
+                        int smallest = -1; //There are only a few registries, so the smallest head is found by a linear scan.
+                        for (int i = 0; i < heads.length; i++) {
+                            if (heads[i] != null && (smallest < 0 || heads[i].getVoyageID() < heads[smallest].getVoyageID())) {
+                                smallest = i;
+                            }
+                        }
+                        if (smallest < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        Voyage voyage = heads[smallest];
+                        heads[smallest] = sources[smallest].hasNext() ? (Voyage) sources[smallest].next() : null;
+                        return voyage;
+                    }
+                };
+            }
+        };
+    }
+
+    private void compact() { //Drops the voyages that were removed since the last ordered access, keeping the order of the others.
+        if (removedCount == 0) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < orderedSize; i++) {
+            Voyage voyage = ordered[i];
+            if (find(voyage.getVoyageID()) == voyage) {
+                ordered[kept++] = voyage;
+            }
+        }
+        Arrays.fill(ordered, kept, orderedSize, null);
+        orderedSize = kept;
+        removedCount = 0;
+    }
+
+    private void loadAll() { //Registers the voyages of the source that have not been looked up yet.
+        if (source == null) {
+            return;
+        }
+        VoyageSource loaded = source;
+        source = null;
+        for (int voyageID : loaded.getVoyageIDs()) {
+            if (find(voyageID) == null) {
+                add(loaded.load(voyageID));
+            }
+        }
+    }
+
+    private Voyage find(int voyageID) {
+        int mask = keys.length - 1;
+        for (int slot = hash(voyageID) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == voyageID) {
+                return values[slot];
+            }
+        }
+        return null;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Voyage[] oldValues = values;
+        keys = new int[capacity];
+        values = new Voyage[capacity];
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void insert(int voyageID, Voyage voyage) {
+        int mask = keys.length - 1;
+        int slot = hash(voyageID) & mask;
+        while (values[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = voyageID;
+        values[slot] = voyage;
+    }
+
+    private static int hash(int voyageID) { //Consecutive IDs are spread over the table to keep the probe sequences short.
+        int h = voyageID * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public final class VoyageSnapshot {
+    private static final int MAGIC = 0x56534E50; //"VSNP"
+    private static final int FORMAT_VERSION = 2; //Version 2 writes the lengths of the city names as ints.
+    private static final int HEADER_SIZE = 16; //Magic, format version, number of voyages and the CRC32 of the rest of the file.
+    private static final long MAPPING_THRESHOLD = 1 << 20; //Smaller files are read and written through a heap buffer.
+
+    private VoyageSnapshot() {
+    }
+
+    /**
+     * Saves every voyage of the registry with its seats and revenue into a snapshot file. The snapshot is written
+     * next to the file first and then moved over it, so an interrupted save leaves the previous snapshot intact.
+     *
+     * @param voyages The registry of voyages to be saved.
+     * @param path    Path to the snapshot file.
+     * @throws IOException If an I/O error occurs while writing the snapshot.
+     */
+    public static void save(VoyageRegistry voyages, String path) throws IOException {
+        long size = HEADER_SIZE;
+        for (Voyage voyage : voyages) {
+            size += VoyageCodec.size(voyage) + 8 + 4 + 8L * voyage.getSeatMap().getNumberOfWords();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The snapshot would be too large: " + size + " bytes");
+        }
+
+        Path target = Paths.get(path);
+        Path temporary = Paths.get(path + ".tmp");
+        FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer buffer = size >= MAPPING_THRESHOLD
+                    ? channel.map(FileChannel.MapMode.READ_WRITE, 0, size)
+                    : ByteBuffer.allocate((int) size);
+            buffer.position(HEADER_SIZE);
+            for (Voyage voyage : voyages) {
+                SeatMap seatMap = voyage.getSeatMap();
+                VoyageCodec.write(buffer, voyage);
+                buffer.putDouble(voyage.getRevenue());
+                buffer.putInt(seatMap.getNumberOfWords());
+                for (int i = 0; i < seatMap.getNumberOfWords(); i++) {
+                    buffer.putLong(seatMap.getWord(i));
+                }
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putInt(8, voyages.size());
+            buffer.putInt(12, checksum(buffer, HEADER_SIZE, (int) size));
+
+            if (buffer instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) buffer).force();
+            } else {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+        } finally {
+            channel.close();
+        }
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Loads the voyages of a snapshot file into the given registry, with their seats and revenue. Nothing is
+     * parsed or validated again; a snapshot that is cut off or corrupt is rejected as a whole.
+     *
+     * @param path    Path to the snapshot file.
+     * @param voyages The registry the voyages are added to; it must not hold any of their IDs.
+     * @throws IOException If the snapshot cannot be read or is not a valid snapshot.
+     */
+    public static void load(String path, VoyageRegistry voyages) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is not a voyage snapshot");
+            }
+            ByteBuffer buffer;
+            if (size >= MAPPING_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    //Reads until the buffer is full.
+                }
+                buffer.flip();
+            }
+
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException(path + " is not a voyage snapshot of a known format");
+            }
+            if (buffer.getInt(12) != checksum(buffer, HEADER_SIZE, (int) size)) {
+                throw new IOException(path + " is damaged, its checksum does not match");
+            }
+            int count = buffer.getInt(8);
+            buffer.position(HEADER_SIZE);
+            for (int i = 0; i < count; i++) {
+                Voyage voyage = VoyageCodec.read(buffer, voyages.getSeatStore());
+                voyage.setRevenue(buffer.getDouble());
+                SeatMap seatMap = voyage.getSeatMap();
+                int words = buffer.getInt();
+                if (words != seatMap.getNumberOfWords()) {
+                    throw new IOException(path + " is damaged, the seats of voyage " + voyage.getVoyageID() + " do not match its rows");
+                }
+                for (int j = 0; j < words; j++) {
+                    seatMap.setWord(j, buffer.getLong());
+                }
+                voyages.add(voyage);
+            }
+        } catch (RuntimeException e) { //A buffer underflow or an unknown voyage type.
+            throw new IOException(path + " is damaged", e);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer, int from, int to) {
+        CRC32 crc = new CRC32();
+        if (buffer.hasArray()) {
+            crc.update(buffer.array(), buffer.arrayOffset() + from, to - from);
+            return (int) crc.getValue();
+        }
+        ByteBuffer view = buffer.duplicate(); //A mapped buffer is copied in pieces, as CRC32 takes only arrays on Java 8.
+        view.limit(to).position(from);
+        byte[] piece = new byte[1 << 16];
+        while (view.hasRemaining()) {
+            int length = Math.min(piece.length, view.remaining());
+            view.get(piece, 0, length);
+            crc.update(piece, 0, length);
+        }
+        return (int) crc.getValue();
+    }
+}
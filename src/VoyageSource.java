@@ -0,0 +1,17 @@
+public interface VoyageSource {
+    /**
+     * Constructs the stored voyage with the given ID, with its seats and revenue. Every call constructs a new
+     * Voyage object, so a voyage is to be loaded once and kept in a registry.
+     *
+     * @param voyageID The ID of the voyage to be loaded.
+     * @return The voyage, or null if no voyage with that ID is stored.
+     */
+    Voyage load(int voyageID);
+
+    /**
+     * Returns the IDs of all the stored voyages, in no particular order.
+     *
+     * @return The IDs of the stored voyages.
+     */
+    int[] getVoyageIDs();
+}